@@ -0,0 +1,62 @@
+package io.github.raffaeleflorio.ticketservice.butter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-request cost of the X-BUTTER-KEY verification
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XButterKeyBenchmark {
+
+  @Param({"1", "2"})
+  private int activeSecrets;
+
+  private ButterSecrets secrets;
+  private XButterKeyIdentityProvider provider;
+  private String valid;
+  private String invalid;
+
+  @Setup
+  public void setup() {
+    var all = List.of("a3f1c9e27b5d4f60a8e2c4b6d8f0a1c3", "0f9e8d7c6b5a49382716a5b4c3d2e1f0");
+    this.secrets = new ButterSecrets(all.subList(0, this.activeSecrets));
+    this.provider = new XButterKeyIdentityProvider(this.secrets);
+    this.valid = all.get(0);
+    this.invalid = "a3f1c9e27b5d4f60a8e2c4b6d8f0a1c4";
+  }
+
+  @Benchmark
+  public Object validKey() {
+    return this.secrets.verify(this.valid) ? this.secrets.identity() : null;
+  }
+
+  @Benchmark
+  public Object invalidKey() {
+    return this.secrets.verify(this.invalid) ? this.secrets.identity() : null;
+  }
+
+  @Benchmark
+  public Object validKeyThroughProvider() {
+    return this.provider.authenticate(new XButterKeyAuthenticationRequest(this.valid), null);
+  }
+}
@@ -0,0 +1,57 @@
+package io.github.raffaeleflorio.ticketservice.butter.newevent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of mapping a Butter's page to an event's description, as done by {@link NewEventFromButter}
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ButterEventPageBenchmark {
+
+  private JsonObject singlePage;
+
+  @Setup
+  public void setup() {
+    this.singlePage = Json.createObjectBuilder()
+      .add("data", Json.createObjectBuilder()
+        .add("slug", "a-great-event")
+        .add("name", "A great event")
+        .add("page_type", "event")
+        .add("published", "2030-01-01T10:00:00.000000Z")
+        .add("updated", "2030-01-02T10:00:00.000000Z")
+        .add("fields", Json.createObjectBuilder()
+          .add("title", "A great event")
+          .add("description", "A synthetic event of the benchmarks, long enough to resemble a real one.")
+          .add("poster", "https://cdn.buttercms.com/poster.jpg")
+          .add("date", "2030-05-17T21:30:00")
+          .add("maxtickets", "500")
+        )
+      )
+      .build();
+  }
+
+  @Benchmark
+  public JsonObject mapping() {
+    return new ButterEventPage(this.singlePage.getJsonObject("data")).asJsonObject();
+  }
+}
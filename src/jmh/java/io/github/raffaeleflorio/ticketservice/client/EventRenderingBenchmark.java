@@ -0,0 +1,119 @@
+package io.github.raffaeleflorio.ticketservice.client;
+
+import io.quarkus.qute.Engine;
+import io.quarkus.qute.HtmlEscaper;
+import io.quarkus.qute.Template;
+import io.quarkus.qute.ValueResolver;
+import io.quarkus.qute.Variant;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * The cost of rendering an event: the {@link TemplateExtensions} date formatting and the whole event_html tag.
+ * Outside Quarkus the value resolvers of the template are registered by hand, mirroring the generated ones.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventRenderingBenchmark {
+
+  private static final String PATTERN = "MMM d yyyy - E HH:mm";
+
+  @Param({"0", "100"})
+  private int availableTickets;
+
+  private JsonObject event;
+  private OffsetDateTime date;
+  private Template eventHtml;
+
+  @Setup
+  public void setup() throws IOException {
+    this.date = OffsetDateTime.of(2030, 5, 17, 21, 30, 0, 0, ZoneOffset.UTC);
+    this.event = Json.createObjectBuilder()
+      .add("id", UUID.randomUUID().toString())
+      .add("title", "A <great> event")
+      .add("description", "A synthetic event of the benchmarks, long enough to resemble a real one & escaped.")
+      .add("poster", "https://cdn.example.org/posters/1.jpg")
+      .add("date", this.date.toString())
+      .add("availableTickets", this.availableTickets)
+      .build();
+    this.eventHtml = Engine.builder()
+      .addDefaults()
+      .addValueResolver(EventRenderingBenchmark.jsonObject("getString", JsonObject::getString))
+      .addValueResolver(EventRenderingBenchmark.jsonObject("getInt", JsonObject::getInt))
+      .addValueResolver(EventRenderingBenchmark.jsonObject("getOffsetDateTime", TemplateExtensions::getOffsetDateTime))
+      .addValueResolver(ValueResolver.builder()
+        .applyToBaseClass(OffsetDateTime.class)
+        .applyToName("format")
+        .applyToParameters(1)
+        .resolveAsync(context -> context.evaluate(context.getParams().get(0))
+          .thenApply(pattern -> TemplateExtensions.format((OffsetDateTime) context.getBase(), (String) pattern))
+        )
+        .build()
+      )
+      .addResultMapper(new HtmlEscaper(List.of(Variant.TEXT_HTML)))
+      .build()
+      .parse(this.eventHtmlContent(), Variant.forContentType(Variant.TEXT_HTML));
+  }
+
+  private static ValueResolver jsonObject(final String name, final BiFunction<JsonObject, String, Object> fn) {
+    return ValueResolver.builder()
+      .applyToBaseClass(JsonObject.class)
+      .applyToName(name)
+      .applyToParameters(1)
+      .resolveAsync(context -> context.evaluate(context.getParams().get(0))
+        .thenApply(key -> fn.apply((JsonObject) context.getBase(), (String) key))
+      )
+      .build();
+  }
+
+  private String eventHtmlContent() throws IOException {
+    try (var template = this.getClass().getResourceAsStream("/templates/tags/event_html.html")) {
+      if (template == null) {
+        throw new UncheckedIOException(new IOException("templates/tags/event_html.html not found"));
+      }
+      return new String(template.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  @Benchmark
+  public String formatDate() {
+    return TemplateExtensions.format(this.date, PATTERN);
+  }
+
+  @Benchmark
+  public String parseAndFormatDate() {
+    return TemplateExtensions.format(TemplateExtensions.getOffsetDateTime(this.event, "date"), PATTERN);
+  }
+
+  @Benchmark
+  public String renderEventHtml() {
+    return this.eventHtml.data("it", this.event).render();
+  }
+}
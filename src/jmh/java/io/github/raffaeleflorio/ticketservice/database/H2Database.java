@@ -0,0 +1,73 @@
+package io.github.raffaeleflorio.ticketservice.database;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+
+import java.util.UUID;
+
+/**
+ * A private in-memory H2 database, initialised with import.sql, for benchmarks.
+ * Each instance owns a distinct database, so trials don't see each other rows.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+public final class H2Database implements AutoCloseable {
+
+  private final ConnectionPool pool;
+  private final DbConnections connections;
+
+  /**
+   * Builds the database
+   *
+   * @param poolSize The size of the connection pool
+   */
+  public H2Database(final Integer poolSize) {
+    this(poolSize, new SimpleMeterRegistry());
+  }
+
+  /**
+   * Builds the database
+   *
+   * @param poolSize The size of the connection pool
+   * @param registry The registry where the connection metrics are recorded
+   */
+  public H2Database(final Integer poolSize, final MeterRegistry registry) {
+    this(
+      new ConnectionPool(
+        ConnectionPoolConfiguration.builder(ConnectionFactories.get(String.join(
+            "",
+            "r2dbc:h2:mem:///bench-",
+            UUID.randomUUID().toString(),
+            "?INIT=RUNSCRIPT%20FROM%20'classpath:import.sql'"
+          )))
+          .name("ticket-service-bench")
+          .initialSize(poolSize)
+          .maxSize(poolSize)
+          .build()
+      ),
+      registry
+    );
+  }
+
+  private H2Database(final ConnectionPool pool, final MeterRegistry registry) {
+    this.pool = pool;
+    this.connections = new ScopedDbConnections(pool, registry);
+  }
+
+  /**
+   * Emits the connections to the database
+   *
+   * @return The connections
+   */
+  public DbConnections connections() {
+    return this.connections;
+  }
+
+  @Override
+  public void close() {
+    this.pool.dispose();
+  }
+}
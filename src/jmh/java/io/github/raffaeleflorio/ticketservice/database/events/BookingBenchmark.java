@@ -0,0 +1,172 @@
+package io.github.raffaeleflorio.ticketservice.database.events;
+
+import io.github.raffaeleflorio.ticketservice.Event;
+import io.github.raffaeleflorio.ticketservice.database.H2Database;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of {@link DbEvent#ticket(UUID)}, alone and under contention, against an in-memory H2 database.
+ * Bookings are spread among some events: with a single one every thread contends the same row.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingBenchmark {
+
+  @Param({"single", "sharded", "group-commit"})
+  private String strategy;
+
+  @Param({"1", "16"})
+  private int events;
+
+  @Param({"16"})
+  private int poolSize;
+
+  private H2Database database;
+  private MeterRegistry registry;
+  private HoldExpirations holdExpirations;
+  private GroupCommits groupCommits;
+  private Counter aborts;
+  private Timings phases;
+  private List<Event> booked;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    this.database = new H2Database(this.poolSize);
+    this.registry = new SimpleMeterRegistry();
+    this.aborts = this.registry.counter("ticket-service.booking.aborts");
+    this.groupCommits = new GroupCommits(this.database.connections(), new BenchGroupCommitConfig(), this.registry);
+    this.phases = new Timings(this.registry, "ticket-service.booking.phases", "", "phase", List.of("update", "insert"));
+    var dbEvents = new DbEvents(
+      this.database.connections(),
+      this.ticketShards(),
+      this::event,
+      new Timings(
+        this.registry,
+        "ticket-service.db.events.queries",
+        "",
+        "query",
+        List.of("upsert", "batch-upsert", "lookup", "list")
+      )
+    );
+    this.holdExpirations = new HoldExpirations(
+      dbEvents,
+      this.database.connections(),
+      Duration.ofMinutes(5),
+      Duration.ofSeconds(1),
+      Duration.ofMinutes(1)
+    );
+    this.booked = dbEvents.events(new EventDescriptions(Integer.MAX_VALUE).asList(this.events))
+      .await().indefinitely();
+  }
+
+  private Integer ticketShards() {
+    return "sharded".equals(this.strategy) ? 8 : 1;
+  }
+
+  private Event event(final UUID id, final Integer ticketShards) {
+    if (ticketShards > 1) {
+      return this.dbEvent(id, new ShardedSoldTickets(id, ticketShards));
+    }
+    var event = this.dbEvent(id, new EventSoldTickets(id));
+    if ("group-commit".equals(this.strategy)) {
+      return new GroupCommitEvent(id, event, this.groupCommits);
+    }
+    return event;
+  }
+
+  private Event dbEvent(final UUID id, final SoldTickets soldTickets) {
+    return new DbEvent(
+      id,
+      this.database.connections(),
+      new CountedSoldTickets(soldTickets, this.aborts),
+      this.holdExpirations,
+      () -> OffsetDateTime.now(ZoneOffset.UTC),
+      this.phases
+    );
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    this.database.close();
+  }
+
+  private Event anyEvent() {
+    return this.booked.get(ThreadLocalRandom.current().nextInt(this.booked.size()));
+  }
+
+  @Benchmark
+  @Threads(1)
+  public UUID book() {
+    return this.anyEvent().ticket(UUID.randomUUID()).await().indefinitely();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public UUID contendedBook() {
+    return this.anyEvent().ticket(UUID.randomUUID()).await().indefinitely();
+  }
+
+  @Benchmark
+  @Group("browseWhileBooking")
+  @GroupThreads(6)
+  public UUID bookAmongBrowsers() {
+    return this.anyEvent().ticket(UUID.randomUUID()).await().indefinitely();
+  }
+
+  @Benchmark
+  @Group("browseWhileBooking")
+  @GroupThreads(2)
+  public Object browseAmongBookers() {
+    return this.anyEvent().asJsonObject().await().indefinitely();
+  }
+
+  private static final class BenchGroupCommitConfig implements GroupCommitConfig {
+
+    @Override
+    public Boolean enabled() {
+      return true;
+    }
+
+    @Override
+    public Duration window() {
+      return Duration.ofMillis(5);
+    }
+
+    @Override
+    public Integer maxSize() {
+      return 64;
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package io.github.raffaeleflorio.ticketservice.database.events;
+
+import io.github.raffaeleflorio.ticketservice.Events;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Synthetic event descriptions, as expected by {@link Events#event(JsonObject)}, to seed benchmarks
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class EventDescriptions {
+
+  private final Integer maxTickets;
+
+  /**
+   * Builds the descriptions
+   *
+   * @param maxTickets The max tickets of each event
+   */
+  EventDescriptions(final Integer maxTickets) {
+    this.maxTickets = maxTickets;
+  }
+
+  /**
+   * Emits some descriptions of upcoming events
+   *
+   * @param size How many descriptions
+   * @return The descriptions
+   */
+  List<JsonObject> asList(final Integer size) {
+    var now = OffsetDateTime.now(ZoneOffset.UTC);
+    return IntStream.range(0, size)
+      .mapToObj(i -> Json.createObjectBuilder()
+        .add("origin", "BENCH")
+        .add("externalId", "bench-".concat(String.valueOf(i)))
+        .add("title", "Event #".concat(String.valueOf(i)))
+        .add("description", "A synthetic event of the benchmarks, long enough to resemble a real one.")
+        .add("poster", "https://cdn.example.org/posters/".concat(String.valueOf(i)).concat(".jpg"))
+        .add("date", now.plusDays(1 + i % 365).plusMinutes(i).toString())
+        .add("maxTickets", this.maxTickets)
+        .build()
+      )
+      .collect(Collectors.toUnmodifiableList());
+  }
+}
@@ -0,0 +1,110 @@
+package io.github.raffaeleflorio.ticketservice.database.events;
+
+import io.github.raffaeleflorio.ticketservice.Event;
+import io.github.raffaeleflorio.ticketservice.Events;
+import io.github.raffaeleflorio.ticketservice.database.H2Database;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of {@link DbEvents#asJsonObject()}, unfiltered and paged, against an in-memory H2 database
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListingBenchmark {
+
+  @Param({"10", "100", "1000"})
+  private int events;
+
+  private H2Database database;
+  private Events dbEvents;
+  private HoldExpirations holdExpirations;
+  private Timings phases;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    this.database = new H2Database(8);
+    var registry = new SimpleMeterRegistry();
+    this.phases = new Timings(registry, "ticket-service.booking.phases", "", "phase", List.of("update", "insert"));
+    this.dbEvents = new DbEvents(
+      this.database.connections(),
+      1,
+      this::event,
+      new Timings(
+        registry,
+        "ticket-service.db.events.queries",
+        "",
+        "query",
+        List.of("upsert", "batch-upsert", "lookup", "list")
+      )
+    );
+    this.holdExpirations = new HoldExpirations(
+      this.dbEvents,
+      this.database.connections(),
+      Duration.ofMinutes(5),
+      Duration.ofSeconds(1),
+      Duration.ofMinutes(1)
+    );
+    this.dbEvents.events(new EventDescriptions(1000).asList(this.events)).await().indefinitely();
+  }
+
+  private Event event(final UUID id, final Integer ticketShards) {
+    return new DbEvent(
+      id,
+      this.database.connections(),
+      new EventSoldTickets(id),
+      this.holdExpirations,
+      () -> OffsetDateTime.now(ZoneOffset.UTC),
+      this.phases
+    );
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    this.database.close();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Object all() {
+    return this.dbEvents.asJsonObject().await().indefinitely();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Object upcomingPage() {
+    return this.dbEvents.upcoming().available().first(20).asJsonObject().await().indefinitely();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public Object contendedAll() {
+    return this.dbEvents.asJsonObject().await().indefinitely();
+  }
+}
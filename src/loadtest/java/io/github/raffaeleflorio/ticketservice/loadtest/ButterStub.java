@@ -0,0 +1,153 @@
+package io.github.raffaeleflorio.ticketservice.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * A local stub of Butter's pages API serving a synthetic catalogue of events
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ * @see <a href="https://buttercms.com/docs/api/#pages">Butter's pages documentation</a>
+ */
+final class ButterStub implements AutoCloseable {
+
+  private static final String PAGES = "/v2/pages/event/";
+
+  private final Map<String, JsonObject> pages;
+  private final HttpServer server;
+  private final ExecutorService executor;
+
+  /**
+   * Builds the stub
+   *
+   * @param events     How many events are in the catalogue
+   * @param maxTickets The max tickets of each event
+   * @throws IOException If the server can't bind a port
+   */
+  ButterStub(final Integer events, final Integer maxTickets) throws IOException {
+    this(
+      ButterStub.pages(events, maxTickets),
+      HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0),
+      Executors.newFixedThreadPool(4)
+    );
+  }
+
+  ButterStub(final Map<String, JsonObject> pages, final HttpServer server, final ExecutorService executor) {
+    this.pages = pages;
+    this.server = server;
+    this.executor = executor;
+  }
+
+  private static Map<String, JsonObject> pages(final Integer events, final Integer maxTickets) {
+    var date = LocalDateTime.now().plusDays(30).truncatedTo(ChronoUnit.MINUTES);
+    return IntStream.range(0, events)
+      .mapToObj(i -> Json.createObjectBuilder()
+        .add("slug", "loadtest-".concat(String.valueOf(i)))
+        .add("page_type", "event")
+        .add("fields", Json.createObjectBuilder()
+          .add("title", "Load test #".concat(String.valueOf(i)))
+          .add("description", "An event of the load test")
+          .add("poster", "https://cdn.example.org/loadtest.jpg")
+          .add("date", date.plusHours(i).toString())
+          .add("maxtickets", String.valueOf(maxTickets))
+        )
+        .build()
+      )
+      .collect(Collectors.toMap(
+        page -> page.getString("slug"),
+        Function.identity(),
+        (first, second) -> first,
+        LinkedHashMap::new
+      ));
+  }
+
+  /**
+   * Starts the stub
+   *
+   * @return The base URI of the API
+   */
+  URI started() {
+    this.server.createContext(PAGES, this::handle);
+    this.server.setExecutor(this.executor);
+    this.server.start();
+    return URI.create(String.format("http://localhost:%d/v2", this.server.getAddress().getPort()));
+  }
+
+  /**
+   * Emits the slugs of the catalogue
+   *
+   * @return The slugs
+   */
+  Iterable<String> slugs() {
+    return this.pages.keySet();
+  }
+
+  private void handle(final HttpExchange exchange) throws IOException {
+    try {
+      var slug = exchange.getRequestURI().getPath().substring(PAGES.length()).replace("/", "");
+      if (slug.isEmpty()) {
+        this.respond(exchange, 200, this.multiplePages(exchange.getRequestURI()));
+      } else if (this.pages.containsKey(slug)) {
+        this.respond(exchange, 200, Json.createObjectBuilder().add("data", this.pages.get(slug)).build());
+      } else {
+        this.respond(exchange, 404, Json.createObjectBuilder().add("detail", "Not found.").build());
+      }
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private JsonObject multiplePages(final URI uri) {
+    var query = Arrays.stream(uri.getQuery() == null ? new String[0] : uri.getQuery().split("&"))
+      .map(parameter -> parameter.split("=", 2))
+      .filter(parameter -> parameter.length == 2)
+      .collect(Collectors.toMap(parameter -> parameter[0], parameter -> parameter[1], (first, second) -> second));
+    var pageSize = Integer.parseInt(query.getOrDefault("page_size", "10"));
+    var page = Integer.parseInt(query.getOrDefault("page", "1"));
+    var data = Json.createArrayBuilder();
+    this.pages.values().stream()
+      .skip((long) (page - 1) * pageSize)
+      .limit(pageSize)
+      .forEach(data::add);
+    return Json.createObjectBuilder()
+      .add("meta", Json.createObjectBuilder().add("count", this.pages.size()))
+      .add("data", data)
+      .build();
+  }
+
+  private void respond(final HttpExchange exchange, final Integer status, final JsonObject body) {
+    try {
+      var bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(status, bytes.length);
+      exchange.getResponseBody().write(bytes);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public void close() {
+    this.server.stop(0);
+    this.executor.shutdownNow();
+  }
+}
@@ -0,0 +1,76 @@
+package io.github.raffaeleflorio.ticketservice.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Recorded latencies, in nanoseconds.
+ * Instances aren't thread safe: each virtual user records its own, merged at the end.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class Latencies {
+
+  private long[] values;
+  private int size;
+
+  /**
+   * Builds empty latencies
+   */
+  Latencies() {
+    this(new long[1024], 0);
+  }
+
+  private Latencies(final long[] values, final int size) {
+    this.values = values;
+    this.size = size;
+  }
+
+  /**
+   * Records a latency
+   *
+   * @param nanos The latency
+   */
+  void record(final long nanos) {
+    if (this.size == this.values.length) {
+      this.values = Arrays.copyOf(this.values, this.size * 2);
+    }
+    this.values[this.size++] = nanos;
+  }
+
+  /**
+   * Emits how many latencies are recorded
+   *
+   * @return The count
+   */
+  int count() {
+    return this.size;
+  }
+
+  /**
+   * Emits these latencies together with others
+   *
+   * @param other The other latencies
+   * @return The merged latencies
+   */
+  Latencies merged(final Latencies other) {
+    var merged = Arrays.copyOf(this.values, this.size + other.size);
+    System.arraycopy(other.values, 0, merged, this.size, other.size);
+    return new Latencies(merged, merged.length);
+  }
+
+  /**
+   * Emits a percentile
+   *
+   * @param percentile The percentile between 0 and 100
+   * @return The latency in milliseconds or 0 if none is recorded
+   */
+  double percentile(final double percentile) {
+    if (this.size == 0) {
+      return 0;
+    }
+    var sorted = Arrays.copyOf(this.values, this.size);
+    Arrays.sort(sorted);
+    var index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+  }
+}
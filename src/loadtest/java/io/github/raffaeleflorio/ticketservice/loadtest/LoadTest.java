@@ -0,0 +1,146 @@
+package io.github.raffaeleflorio.ticketservice.loadtest;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Reproduces an on-sale spike against the packaged application, backed by an in-memory H2 database and a Butter stub.
+ * It seeds the events through Butter's webhook, sends the traffic, then reports throughput, latencies, the rate of
+ * refused bookings and whether any event was oversold. It exits with 1 if so.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+public final class LoadTest {
+
+  private LoadTest() {
+  }
+
+  /**
+   * Runs the load test configured by loadtest.* system properties
+   *
+   * @param args Unused
+   * @throws Exception If the load test can't be run
+   */
+  public static void main(final String[] args) throws Exception {
+    var config = new LoadTestConfig();
+    var webhookSecret = UUID.randomUUID().toString();
+    var client = HttpClient.newBuilder()
+      .executor(Executors.newFixedThreadPool(Math.max(4, config.concurrency() / 4)))
+      .connectTimeout(Duration.ofSeconds(5))
+      .build();
+    Files.createDirectories(config.output());
+    try (
+      var butter = new ButterStub(config.events(), config.maxTickets());
+      var app = new TicketServiceProcess(
+        config.app(),
+        config.output().resolve("app.log"),
+        LoadTest.properties(config, butter.started(), webhookSecret)
+      )
+    ) {
+      var uri = app.started(client, Duration.ofMinutes(1));
+      var events = LoadTest.seeded(client, uri, butter, webhookSecret, config.events());
+      var results = new OnSaleTraffic(client, uri, events, config).results();
+      var available = LoadTest.available(client, uri);
+      var report = new Report(config, events, results, available);
+      var text = report.asString();
+      System.out.println(text);
+      Files.writeString(config.output().resolve("report.txt"), text);
+      if (report.oversold()) {
+        System.exit(1);
+      }
+    }
+    System.exit(0);
+  }
+
+  private static Map<String, String> properties(
+    final LoadTestConfig config,
+    final URI butter,
+    final String webhookSecret
+  ) {
+    return Map.of(
+      "r2dbc.url", "r2dbc:h2:mem:///loadtest?INIT=RUNSCRIPT%20FROM%20'classpath:import.sql'",
+      "quarkus.rest-client.butter.url", butter.toString(),
+      "buttercms-api.token", "loadtest",
+      "buttercms-webhook.secret", webhookSecret,
+      "ticket-service.butter.sync.on-startup", "false",
+      "ticket-service.db.events.ticket-shards", String.valueOf(config.ticketShards()),
+      "ticket-service.booking.group-commit.enabled", String.valueOf(config.groupCommit()),
+      "ticket-service.booking.admission.enabled", String.valueOf(config.admission())
+    );
+  }
+
+  private static List<UUID> seeded(
+    final HttpClient client,
+    final URI app,
+    final ButterStub butter,
+    final String webhookSecret,
+    final Integer events
+  ) throws IOException, InterruptedException {
+    var slugs = new ArrayList<String>();
+    for (var slug : butter.slugs()) {
+      var notification = Json.createObjectBuilder()
+        .add("data", Json.createObjectBuilder().add("id", slug).add("page_type", "event"))
+        .add("webhook", Json.createObjectBuilder().add("event", "page.all.publish").add("target", app.toString()))
+        .build();
+      var request = HttpRequest.newBuilder(app.resolve("/butter/events"))
+        .header("Content-Type", "application/json")
+        .header("X-BUTTER-KEY", webhookSecret)
+        .POST(HttpRequest.BodyPublishers.ofString(notification.toString()))
+        .build();
+      var status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+      if (status != 202) {
+        throw new IllegalStateException(String.format("The webhook of %s answered %d", slug, status));
+      }
+      slugs.add(slug);
+    }
+    var deadline = System.nanoTime() + Duration.ofMinutes(1).toNanos();
+    var seeded = LoadTest.upcoming(client, app);
+    while (seeded.size() < events) {
+      if (System.nanoTime() > deadline) {
+        throw new IllegalStateException(String.format("Only %d of %d events were seeded", seeded.size(), events));
+      }
+      Thread.sleep(250);
+      seeded = LoadTest.upcoming(client, app);
+    }
+    var ids = seeded.stream().collect(Collectors.toMap(event -> event.getString("title"), Function.identity()));
+    return slugs.stream()
+      .map(slug -> "Load test #".concat(slug.substring(slug.lastIndexOf('-') + 1)))
+      .map(ids::get)
+      .map(event -> UUID.fromString(event.getString("id")))
+      .collect(Collectors.toUnmodifiableList());
+  }
+
+  private static Map<UUID, Integer> available(final HttpClient client, final URI app)
+    throws IOException, InterruptedException {
+    return LoadTest.upcoming(client, app).stream().collect(Collectors.toMap(
+      event -> UUID.fromString(event.getString("id")),
+      event -> event.getInt("availableTickets")
+    ));
+  }
+
+  private static List<JsonObject> upcoming(final HttpClient client, final URI app)
+    throws IOException, InterruptedException {
+    var request = HttpRequest.newBuilder(app.resolve("/events"))
+      .header("Accept", "application/x-ndjson")
+      .build();
+    return client.send(request, HttpResponse.BodyHandlers.ofLines()).body()
+      .filter(line -> !line.isBlank())
+      .map(line -> Json.createReader(new StringReader(line)).readObject())
+      .collect(Collectors.toList());
+  }
+}
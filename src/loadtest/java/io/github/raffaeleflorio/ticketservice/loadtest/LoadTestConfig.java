@@ -0,0 +1,148 @@
+package io.github.raffaeleflorio.ticketservice.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Properties;
+
+/**
+ * The configuration of a load test, read from loadtest.* system properties
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class LoadTestConfig {
+
+  private final Properties properties;
+
+  /**
+   * Builds the configuration from the system properties
+   */
+  LoadTestConfig() {
+    this(System.getProperties());
+  }
+
+  /**
+   * Builds the configuration
+   *
+   * @param properties The properties
+   */
+  LoadTestConfig(final Properties properties) {
+    this.properties = properties;
+  }
+
+  /**
+   * Emits the packaged application to run
+   *
+   * @return The path of quarkus-run.jar
+   */
+  Path app() {
+    return Path.of(this.value("app", "target/quarkus-app/quarkus-run.jar"));
+  }
+
+  /**
+   * Emits the directory where the report and the application log are written
+   *
+   * @return The directory
+   */
+  Path output() {
+    return Path.of(this.value("output", "target/loadtest"));
+  }
+
+  /**
+   * Emits how many events are seeded
+   *
+   * @return The number of events
+   */
+  Integer events() {
+    return Integer.valueOf(this.value("events", "20"));
+  }
+
+  /**
+   * Emits the max tickets of each seeded event
+   *
+   * @return The max tickets
+   */
+  Integer maxTickets() {
+    return Integer.valueOf(this.value("max-tickets", "200"));
+  }
+
+  /**
+   * Emits how many virtual users send requests concurrently
+   *
+   * @return The concurrency
+   */
+  Integer concurrency() {
+    return Integer.valueOf(this.value("concurrency", "32"));
+  }
+
+  /**
+   * Emits how long requests are sent without being recorded
+   *
+   * @return The warmup
+   */
+  Duration warmup() {
+    return this.duration("warmup", "5S");
+  }
+
+  /**
+   * Emits how long requests are sent and recorded
+   *
+   * @return The duration
+   */
+  Duration duration() {
+    return this.duration("duration", "30S");
+  }
+
+  /**
+   * Emits the fraction of requests that read the events, the others book a ticket
+   *
+   * @return The read ratio between 0 and 1
+   */
+  Double readRatio() {
+    return Double.valueOf(this.value("read-ratio", "0.8"));
+  }
+
+  /**
+   * Emits the Zipf exponent of the popularity of events: 0 books them uniformly, the higher the hotter the first ones
+   *
+   * @return The skew
+   */
+  Double skew() {
+    return Double.valueOf(this.value("skew", "1.0"));
+  }
+
+  /**
+   * Emits the ticket shards of the application
+   *
+   * @return The ticket shards
+   */
+  Integer ticketShards() {
+    return Integer.valueOf(this.value("ticket-shards", "1"));
+  }
+
+  /**
+   * Emits whether the application commits concurrent bookings together
+   *
+   * @return True if the group commit is enabled
+   */
+  Boolean groupCommit() {
+    return Boolean.valueOf(this.value("group-commit", "false"));
+  }
+
+  /**
+   * Emits whether the application sheds the bookings exceeding its admission control
+   *
+   * @return True if the admission control is enabled
+   */
+  Boolean admission() {
+    return Boolean.valueOf(this.value("admission", "true"));
+  }
+
+  private Duration duration(final String key, final String defaultValue) {
+    return Duration.parse("PT".concat(this.value(key, defaultValue)));
+  }
+
+  private String value(final String key, final String defaultValue) {
+    var value = this.properties.getProperty("loadtest.".concat(key), "");
+    return value.isBlank() ? defaultValue : value.strip();
+  }
+}
@@ -0,0 +1,147 @@
+package io.github.raffaeleflorio.ticketservice.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The traffic of an on-sale spike: closed-loop virtual users mixing reads of the events and bookings.
+ * Bookings pick events by a Zipf distribution, so the first ones are the hottest.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class OnSaleTraffic {
+
+  private final HttpClient client;
+  private final URI app;
+  private final List<UUID> events;
+  private final LoadTestConfig config;
+  private final double[] popularity;
+
+  /**
+   * Builds the traffic
+   *
+   * @param client The HTTP client
+   * @param app    The base URI of the application
+   * @param events The events ordered from the hottest
+   * @param config The configuration
+   */
+  OnSaleTraffic(final HttpClient client, final URI app, final List<UUID> events, final LoadTestConfig config) {
+    this(client, app, events, config, OnSaleTraffic.popularity(events.size(), config.skew()));
+  }
+
+  OnSaleTraffic(
+    final HttpClient client,
+    final URI app,
+    final List<UUID> events,
+    final LoadTestConfig config,
+    final double[] popularity
+  ) {
+    this.client = client;
+    this.app = app;
+    this.events = events;
+    this.config = config;
+    this.popularity = popularity;
+  }
+
+  private static double[] popularity(final Integer events, final Double skew) {
+    var cumulative = new double[events];
+    var sum = 0.0;
+    for (var i = 0; i < events; i++) {
+      sum += 1 / Math.pow(i + 1, skew);
+      cumulative[i] = sum;
+    }
+    for (var i = 0; i < events; i++) {
+      cumulative[i] /= sum;
+    }
+    return cumulative;
+  }
+
+  /**
+   * Sends the traffic until the warmup and the measurement are elapsed
+   *
+   * @return The merged results of every virtual user
+   * @throws InterruptedException If interrupted while waiting the virtual users
+   */
+  Results results() throws InterruptedException {
+    var executor = Executors.newFixedThreadPool(this.config.concurrency());
+    try {
+      var start = System.nanoTime();
+      var measured = start + this.config.warmup().toNanos();
+      var end = measured + this.config.duration().toNanos();
+      var users = new ArrayList<Future<Results>>();
+      for (var i = 0; i < this.config.concurrency(); i++) {
+        users.add(executor.submit(() -> this.user(measured, end)));
+      }
+      var results = new Results(this.events.size());
+      for (var user : users) {
+        results = results.merged(user.get());
+      }
+      return results;
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("A virtual user failed", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private Results user(final long measured, final long end) throws InterruptedException {
+    var results = new Results(this.events.size());
+    var random = ThreadLocalRandom.current();
+    var now = System.nanoTime();
+    while (now < end) {
+      if (random.nextDouble() < this.config.readRatio()) {
+        var status = this.status(this.read());
+        var after = System.nanoTime();
+        results.read(after - now, status, now >= measured);
+        now = after;
+      } else {
+        var event = this.hotEvent(random.nextDouble());
+        var status = this.status(this.booking(this.events.get(event)));
+        var after = System.nanoTime();
+        results.booking(event, after - now, status, now >= measured);
+        now = after;
+      }
+    }
+    return results;
+  }
+
+  private HttpRequest read() {
+    return HttpRequest.newBuilder(this.app.resolve("/events"))
+      .header("Accept", "application/json")
+      .timeout(Duration.ofSeconds(10))
+      .build();
+  }
+
+  private HttpRequest booking(final UUID event) {
+    return HttpRequest.newBuilder(this.app.resolve(String.format("/events/%s/tickets", event)))
+      .header("participant", UUID.randomUUID().toString())
+      .timeout(Duration.ofSeconds(10))
+      .POST(HttpRequest.BodyPublishers.noBody())
+      .build();
+  }
+
+  private String status(final HttpRequest request) throws InterruptedException {
+    try {
+      return String.valueOf(this.client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode());
+    } catch (IOException e) {
+      return "error";
+    }
+  }
+
+  private int hotEvent(final double draw) {
+    var index = Arrays.binarySearch(this.popularity, draw);
+    return Math.min(index >= 0 ? index : -index - 1, this.popularity.length - 1);
+  }
+}
@@ -0,0 +1,130 @@
+package io.github.raffaeleflorio.ticketservice.loadtest;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * The report of a load test
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class Report {
+
+  private final LoadTestConfig config;
+  private final List<UUID> events;
+  private final Results results;
+  private final Map<UUID, Integer> available;
+
+  /**
+   * Builds the report
+   *
+   * @param config    The configuration
+   * @param events    The events ordered from the hottest
+   * @param results   The results of the traffic
+   * @param available The available tickets of each event after the traffic
+   */
+  Report(
+    final LoadTestConfig config,
+    final List<UUID> events,
+    final Results results,
+    final Map<UUID, Integer> available
+  ) {
+    this.config = config;
+    this.events = events;
+    this.results = results;
+    this.available = available;
+  }
+
+  /**
+   * Emits whether an event was oversold or its sold tickets don't match the accepted bookings
+   *
+   * @return True if so
+   */
+  Boolean oversold() {
+    return IntStream.range(0, this.events.size()).anyMatch(this::oversold);
+  }
+
+  private Boolean oversold(final int event) {
+    var available = this.available.getOrDefault(this.events.get(event), 0);
+    var sold = this.config.maxTickets() - available;
+    return available < 0
+      || this.results.booked(event) > this.config.maxTickets()
+      || sold < this.results.booked(event)
+      || sold > this.results.booked(event) + this.results.unknown(event);
+  }
+
+  /**
+   * Emits the report as text
+   *
+   * @return The text
+   */
+  String asString() {
+    var seconds = this.config.duration().toMillis() / 1000.0;
+    var bookings = this.results.bookings().count();
+    var refused = this.results.bookingStatuses().getOrDefault("409", 0L);
+    var shed = this.results.bookingStatuses().getOrDefault("429", 0L)
+      + this.results.bookingStatuses().getOrDefault("503", 0L);
+    var text = new StringBuilder()
+      .append(String.format(
+        Locale.ROOT,
+        String.join(
+          " ",
+          "events=%d max-tickets=%d concurrency=%d read-ratio=%.2f skew=%.2f",
+          "ticket-shards=%d group-commit=%s admission=%s%n"
+        ),
+        this.events.size(),
+        this.config.maxTickets(),
+        this.config.concurrency(),
+        this.config.readRatio(),
+        this.config.skew(),
+        this.config.ticketShards(),
+        this.config.groupCommit(),
+        this.config.admission()
+      ))
+      .append(String.format(
+        Locale.ROOT,
+        "throughput: %.1f req/s%n",
+        (this.results.reads().count() + bookings) / seconds
+      ))
+      .append(this.line("GET /events", this.results.reads(), this.results.readStatuses(), seconds))
+      .append(this.line("POST /events/{id}/tickets", this.results.bookings(), this.results.bookingStatuses(), seconds))
+      .append(String.format(
+        Locale.ROOT,
+        "409 rate: %.2f%% shed rate: %.2f%%%n",
+        bookings == 0 ? 0.0 : refused * 100.0 / bookings,
+        bookings == 0 ? 0.0 : shed * 100.0 / bookings
+      ));
+    IntStream.range(0, this.events.size()).forEach(event -> text.append(String.format(
+      Locale.ROOT,
+      "event #%d %s: booked=%d unknown=%d available=%d %s%n",
+      event,
+      this.events.get(event),
+      this.results.booked(event),
+      this.results.unknown(event),
+      this.available.getOrDefault(this.events.get(event), 0),
+      this.oversold(event) ? "OVERSOLD" : "ok"
+    )));
+    return text.append(this.oversold() ? "oversell check: FAILED" : "oversell check: passed").toString();
+  }
+
+  private String line(
+    final String request,
+    final Latencies latencies,
+    final Map<String, Long> statuses,
+    final double seconds
+  ) {
+    return String.format(
+      Locale.ROOT,
+      "%s: %.1f req/s p50=%.2fms p99=%.2fms p999=%.2fms statuses=%s%n",
+      request,
+      latencies.count() / seconds,
+      latencies.percentile(50),
+      latencies.percentile(99),
+      latencies.percentile(99.9),
+      statuses
+    );
+  }
+}
@@ -0,0 +1,163 @@
+package io.github.raffaeleflorio.ticketservice.loadtest;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * What virtual users observed.
+ * Latencies and statuses are recorded only after the warmup, while bookings are always counted to check overselling.
+ * Instances aren't thread safe: each virtual user records its own, merged at the end.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class Results {
+
+  private final Latencies reads;
+  private final Latencies bookings;
+  private final Map<String, Long> readStatuses;
+  private final Map<String, Long> bookingStatuses;
+  private final int[] booked;
+  private final int[] unknown;
+
+  /**
+   * Builds empty results
+   *
+   * @param events How many events are booked
+   */
+  Results(final Integer events) {
+    this(new Latencies(), new Latencies(), new TreeMap<>(), new TreeMap<>(), new int[events], new int[events]);
+  }
+
+  private Results(
+    final Latencies reads,
+    final Latencies bookings,
+    final Map<String, Long> readStatuses,
+    final Map<String, Long> bookingStatuses,
+    final int[] booked,
+    final int[] unknown
+  ) {
+    this.reads = reads;
+    this.bookings = bookings;
+    this.readStatuses = readStatuses;
+    this.bookingStatuses = bookingStatuses;
+    this.booked = booked;
+    this.unknown = unknown;
+  }
+
+  /**
+   * Records a read of the events
+   *
+   * @param nanos    The latency
+   * @param status   The status code or "error"
+   * @param measured True if after the warmup
+   */
+  void read(final long nanos, final String status, final Boolean measured) {
+    if (measured) {
+      this.reads.record(nanos);
+      this.readStatuses.merge(status, 1L, Long::sum);
+    }
+  }
+
+  /**
+   * Records a booking
+   *
+   * @param event    The index of the booked event
+   * @param nanos    The latency
+   * @param status   The status code or "error" when the outcome is unknown
+   * @param measured True if after the warmup
+   */
+  void booking(final int event, final long nanos, final String status, final Boolean measured) {
+    if ("202".equals(status)) {
+      this.booked[event]++;
+    } else if ("error".equals(status)) {
+      this.unknown[event]++;
+    }
+    if (measured) {
+      this.bookings.record(nanos);
+      this.bookingStatuses.merge(status, 1L, Long::sum);
+    }
+  }
+
+  /**
+   * Emits these results together with others
+   *
+   * @param other The other results
+   * @return The merged results
+   */
+  Results merged(final Results other) {
+    var readStatuses = new TreeMap<>(this.readStatuses);
+    other.readStatuses.forEach((status, count) -> readStatuses.merge(status, count, Long::sum));
+    var bookingStatuses = new TreeMap<>(this.bookingStatuses);
+    other.bookingStatuses.forEach((status, count) -> bookingStatuses.merge(status, count, Long::sum));
+    var booked = this.booked.clone();
+    var unknown = this.unknown.clone();
+    for (var i = 0; i < booked.length; i++) {
+      booked[i] += other.booked[i];
+      unknown[i] += other.unknown[i];
+    }
+    return new Results(
+      this.reads.merged(other.reads),
+      this.bookings.merged(other.bookings),
+      readStatuses,
+      bookingStatuses,
+      booked,
+      unknown
+    );
+  }
+
+  /**
+   * Emits the latencies of the reads
+   *
+   * @return The latencies
+   */
+  Latencies reads() {
+    return this.reads;
+  }
+
+  /**
+   * Emits the latencies of the bookings
+   *
+   * @return The latencies
+   */
+  Latencies bookings() {
+    return this.bookings;
+  }
+
+  /**
+   * Emits how many reads answered each status
+   *
+   * @return The statuses
+   */
+  Map<String, Long> readStatuses() {
+    return this.readStatuses;
+  }
+
+  /**
+   * Emits how many bookings answered each status
+   *
+   * @return The statuses
+   */
+  Map<String, Long> bookingStatuses() {
+    return this.bookingStatuses;
+  }
+
+  /**
+   * Emits the accepted bookings of an event, warmup included
+   *
+   * @param event The index of the event
+   * @return The accepted bookings
+   */
+  int booked(final int event) {
+    return this.booked[event];
+  }
+
+  /**
+   * Emits the bookings of an event whose outcome is unknown, e.g. timed out, warmup included
+   *
+   * @param event The index of the event
+   * @return The unknown bookings
+   */
+  int unknown(final int event) {
+    return this.unknown[event];
+  }
+}
@@ -0,0 +1,105 @@
+package io.github.raffaeleflorio.ticketservice.loadtest;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The packaged application running in a child process
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class TicketServiceProcess implements AutoCloseable {
+
+  private final Path app;
+  private final Path log;
+  private final Map<String, String> properties;
+  private Process process;
+
+  /**
+   * Builds the process
+   *
+   * @param app        The path of quarkus-run.jar
+   * @param log        Where the application output is written
+   * @param properties The configuration properties of the application
+   */
+  TicketServiceProcess(final Path app, final Path log, final Map<String, String> properties) {
+    this.app = app;
+    this.log = log;
+    this.properties = properties;
+  }
+
+  /**
+   * Starts the application and waits until it serves the events
+   *
+   * @param client  The HTTP client
+   * @param timeout How long to wait
+   * @return The base URI of the application
+   * @throws IOException          If the application can't be started
+   * @throws InterruptedException If interrupted while waiting
+   */
+  URI started(final HttpClient client, final Duration timeout) throws IOException, InterruptedException {
+    if (!Files.isRegularFile(this.app)) {
+      throw new IllegalStateException(String.format("%s not found, package the application first", this.app));
+    }
+    var port = this.freePort();
+    var command = new ArrayList<String>();
+    command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+    command.add(String.format("-Dquarkus.http.port=%d", port));
+    this.properties.forEach((key, value) -> command.add(String.format("-D%s=%s", key, value)));
+    command.add("-jar");
+    command.add(this.app.toString());
+    Files.createDirectories(this.log.getParent());
+    this.process = new ProcessBuilder(command)
+      .redirectErrorStream(true)
+      .redirectOutput(this.log.toFile())
+      .start();
+    var uri = URI.create(String.format("http://localhost:%d", port));
+    var deadline = System.nanoTime() + timeout.toNanos();
+    while (!this.ready(client, uri)) {
+      if (!this.process.isAlive() || System.nanoTime() > deadline) {
+        throw new IllegalStateException(String.format("The application didn't start, see %s", this.log));
+      }
+      Thread.sleep(250);
+    }
+    return uri;
+  }
+
+  private Integer freePort() throws IOException {
+    try (var socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+
+  private Boolean ready(final HttpClient client, final URI uri) throws IOException, InterruptedException {
+    try {
+      var request = HttpRequest.newBuilder(uri.resolve("/events"))
+        .header("Accept", "application/json")
+        .timeout(Duration.ofSeconds(2))
+        .build();
+      return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+    } catch (ConnectException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public void close() throws InterruptedException {
+    if (this.process != null) {
+      this.process.destroy();
+      if (!this.process.waitFor(10, TimeUnit.SECONDS)) {
+        this.process.destroyForcibly();
+      }
+    }
+  }
+}
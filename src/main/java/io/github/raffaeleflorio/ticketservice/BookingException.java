@@ -0,0 +1,92 @@
+package io.github.raffaeleflorio.ticketservice;
+
+/**
+ * The failure of a booking of an {@link Event}, typed by its reason
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+public final class BookingException extends RuntimeException {
+
+  private final Reason reason;
+
+  /**
+   * Builds a failure
+   *
+   * @param reason  The reason
+   * @param message The message
+   */
+  public BookingException(final Reason reason, final String message) {
+    super(message);
+    this.reason = reason;
+  }
+
+  /**
+   * Builds a failure
+   *
+   * @param reason  The reason
+   * @param message The message
+   * @param cause   The cause
+   */
+  public BookingException(final Reason reason, final String message, final Throwable cause) {
+    super(message, cause);
+    this.reason = reason;
+  }
+
+  /**
+   * Emits its reason
+   *
+   * @return The reason
+   */
+  public Reason reason() {
+    return this.reason;
+  }
+
+  /**
+   * The reasons of a failed booking
+   */
+  public enum Reason {
+    /**
+     * The event hasn't enough available tickets
+     */
+    SOLD_OUT,
+    /**
+     * The participant already has a ticket or a hold of the event
+     */
+    DUPLICATE,
+    /**
+     * The event isn't upcoming anymore
+     */
+    GONE,
+    /**
+     * The booking didn't complete because of the infrastructure, so it can be retried later
+     */
+    INFRASTRUCTURE,
+    /**
+     * The participants or the event exceeded their booking rate, so it can be retried later
+     */
+    THROTTLED,
+    /**
+     * The event has too many bookings in flight, so it can be retried later
+     */
+    OVERLOADED,
+    /**
+     * Another booking of the same participant is in flight, so it can be retried later
+     */
+    IN_FLIGHT,
+    /**
+     * The hold to confirm is missing or expired
+     */
+    EXPIRED;
+
+    /**
+     * Emits the reason of a failed booking.
+     * A failure that isn't a {@link BookingException} didn't come from a refusal, so it's an infrastructure one.
+     *
+     * @param failure The failure
+     * @return The reason
+     */
+    public static Reason of(final Throwable failure) {
+      return failure instanceof BookingException ? ((BookingException) failure).reason() : INFRASTRUCTURE;
+    }
+  }
+}
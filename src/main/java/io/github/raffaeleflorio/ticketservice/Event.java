@@ -3,6 +3,7 @@ package io.github.raffaeleflorio.ticketservice;
 import io.smallrye.mutiny.Uni;
 
 import javax.json.JsonObject;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -20,10 +21,47 @@ public interface Event {
   Uni<JsonObject> asJsonObject();
 
   /**
-   * Books a ticket
+   * Books a ticket.
+   * A refused booking fails with a {@link BookingException} telling why.
    *
    * @param participant The participant id
    * @return The ticket's id
    */
   Uni<UUID> ticket(UUID participant);
+
+  /**
+   * Books a ticket for each participant, all or nothing.
+   * A refused booking fails with a {@link BookingException} telling why.
+   *
+   * @param participants The distinct participants ids, at least one
+   * @return The tickets' ids, in the same order of the participants
+   * @throws IllegalArgumentException If there are no participants or some of them repeat
+   */
+  Uni<List<UUID>> tickets(List<UUID> participants);
+
+  /**
+   * Holds a ticket for a while.
+   * A held ticket isn't available until it is released, explicitly or because it expired.
+   * A refused hold fails with a {@link BookingException} telling why.
+   *
+   * @param participant The participant id
+   * @return The hold's id
+   */
+  Uni<UUID> hold(UUID participant);
+
+  /**
+   * Books a held ticket, if the hold isn't expired
+   *
+   * @param hold The hold's id
+   * @return The ticket's id
+   */
+  Uni<UUID> confirm(UUID hold);
+
+  /**
+   * Releases a held ticket, making it available again
+   *
+   * @param hold The hold's id
+   * @return Nothing
+   */
+  Uni<Void> release(UUID hold);
 }
@@ -4,6 +4,8 @@ import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 
 import javax.json.JsonObject;
+import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -14,7 +16,8 @@ import java.util.UUID;
 public interface Events {
 
   /**
-   * Adds an event to itself given a JSON description.
+   * Adds an event to itself given a JSON description, or updates the one with the same origin and external id.
+   * An update never lowers the max tickets below the sold ones.
    * The description must have:
    * <ul>
    *  <li>title: the event's title as string</li>
@@ -27,10 +30,19 @@ public interface Events {
    * </ul>
    *
    * @param event The specification to create the event
-   * @return The added event
+   * @return The added or updated event
    */
   Uni<Event> event(JsonObject event);
 
+  /**
+   * Adds or updates many events together, all or nothing.
+   * Each description is the same of {@link #event(JsonObject)}.
+   *
+   * @param events The specifications to create or update the events
+   * @return The added or updated events
+   */
+  Uni<List<Event>> events(List<JsonObject> events);
+
   /**
    * Emits an event corresponded to the given id
    *
@@ -47,9 +59,59 @@ public interface Events {
   Events upcoming();
 
   /**
-   * Emits its {@link JsonObject} representation
+   * Filters out events that come before the given one in the (date, id) order.
+   * It's the cursor of a page.
+   *
+   * @param date The date of the last seen event
+   * @param id   The id of the last seen event
+   * @return The events after the given one
+   */
+  Events after(OffsetDateTime date, UUID id);
+
+  /**
+   * Filters out events before the given date
+   *
+   * @param date The date
+   * @return The events since the given date
+   */
+  Events since(OffsetDateTime date);
+
+  /**
+   * Filters out events at or after the given date
+   *
+   * @param date The date
+   * @return The events until the given date, exclusive
+   */
+  Events until(OffsetDateTime date);
+
+  /**
+   * Filters out sold out events
+   *
+   * @return The events with available tickets
+   */
+  Events available();
+
+  /**
+   * Keeps the first events in the (date, id) order
+   *
+   * @param size The max number of events
+   * @return The first events
+   */
+  Events first(Integer size);
+
+  /**
+   * Emits its {@link JsonObject} representation.
+   * Events are ordered by date and id.
    *
    * @return Its {@link JsonObject} representation
    */
   Uni<JsonObject> asJsonObject();
+
+  /**
+   * Emits the {@link JsonObject} representations of its events one at a time, ordered by date and id.
+   * Unlike {@link #asJsonObject()}, it doesn't keep all of them in memory.
+   *
+   * @return The {@link JsonObject} representations of its events
+   */
+  Multi<JsonObject> asJsonStream();
 }
@@ -0,0 +1,40 @@
+package io.github.raffaeleflorio.ticketservice;
+
+import io.smallrye.mutiny.Uni;
+
+import javax.json.JsonObject;
+import java.util.function.Function;
+
+/**
+ * A durable queue of received notifications waiting to be handled
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+public interface Inbox {
+
+  /**
+   * Appends a notification to itself
+   *
+   * @param notification The notification
+   * @return Nothing once the notification is durably stored
+   */
+  Uni<Void> notification(JsonObject notification);
+
+  /**
+   * Handles the due notifications.
+   * A handled notification is removed, a failed one is retried later with backoff.
+   *
+   * @param size        The max number of notifications to handle
+   * @param concurrency The max number of notifications handled concurrently
+   * @param handler     The notification handler
+   * @return The number of handled notifications
+   */
+  Uni<Integer> drained(Integer size, Integer concurrency, Function<JsonObject, Uni<Void>> handler);
+
+  /**
+   * Emits the number of notifications waiting to be handled
+   *
+   * @return The number of notifications
+   */
+  Uni<Long> depth();
+}
@@ -0,0 +1,137 @@
+package io.github.raffaeleflorio.ticketservice.admission;
+
+import io.github.raffaeleflorio.ticketservice.BookingException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.mutiny.Uni;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * The admission control of bookings.
+ * A booking is throttled if its participants or its event exceeded their rate, and it's shed if its event has as many
+ * bookings in flight as its adaptive concurrency limit. Both are refused at once, without queueing on the database.
+ * A throttled booking gives back the tokens it took, so it doesn't consume the rate of the others.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+@ApplicationScoped
+public final class Admission {
+
+  private final Boolean enabled;
+  private final TokenBuckets participants;
+  private final TokenBuckets events;
+  private final ConcurrencyLimits limits;
+  private final Supplier<Instant> nowSupplier;
+  private final Counter throttled;
+  private final Counter shed;
+
+  /**
+   * Builds the admission control
+   *
+   * @param config   The admission control configuration
+   * @param registry The registry where metrics are recorded
+   */
+  @Inject
+  Admission(final AdmissionConfig config, final MeterRegistry registry) {
+    this(
+      config.enabled(),
+      new TokenBuckets(config.participantRate(), config.participantBurst(), config.maxSize()),
+      new TokenBuckets(config.eventRate(), config.eventBurst(), config.maxSize()),
+      new ConcurrencyLimits(
+        () -> new ConcurrencyLimit(
+          config.minConcurrency(),
+          config.maxConcurrency(),
+          config.targetLatency(),
+          config.backoffRatio()
+        ),
+        config.maxSize(),
+        config.sweepInterval()
+      ),
+      Instant::now,
+      Admission.rejections(registry, "throttled"),
+      Admission.rejections(registry, "shed")
+    );
+  }
+
+  Admission(
+    final Boolean enabled,
+    final TokenBuckets participants,
+    final TokenBuckets events,
+    final ConcurrencyLimits limits,
+    final Supplier<Instant> nowSupplier,
+    final Counter throttled,
+    final Counter shed
+  ) {
+    this.enabled = enabled;
+    this.participants = participants;
+    this.events = events;
+    this.limits = limits;
+    this.nowSupplier = nowSupplier;
+    this.throttled = throttled;
+    this.shed = shed;
+  }
+
+  private static Counter rejections(final MeterRegistry registry, final String reason) {
+    return Counter.builder("ticket-service.booking.admission.rejections")
+      .description("Bookings refused by the admission control")
+      .tag("reason", reason)
+      .register(registry);
+  }
+
+  /**
+   * Admits a booking
+   *
+   * @param id           The event's id
+   * @param participants The participants ids
+   * @param booking      The booking
+   * @param <T>          The booking's result type
+   * @return The admitted booking or a {@link BookingException} if it was refused
+   */
+  <T> Uni<T> admitted(final UUID id, final List<UUID> participants, final Supplier<Uni<T>> booking) {
+    if (!this.enabled) {
+      return booking.get();
+    }
+    return Uni.createFrom().deferred(() -> this.rated(id, participants)
+      ? this.limited(this.limits.limit(id), booking)
+      : this.refused(this.throttled, BookingException.Reason.THROTTLED, "Unable to book so often")
+    );
+  }
+
+  private Boolean rated(final UUID id, final List<UUID> participants) {
+    for (var index = 0; index < participants.size(); index++) {
+      if (!this.participants.taken(participants.get(index))) {
+        participants.subList(0, index).forEach(this.participants::refunded);
+        return false;
+      }
+    }
+    if (!this.events.taken(id)) {
+      participants.forEach(this.participants::refunded);
+      return false;
+    }
+    return true;
+  }
+
+  private <T> Uni<T> limited(final ConcurrencyLimit limit, final Supplier<Uni<T>> booking) {
+    if (!limit.acquired()) {
+      return this.refused(this.shed, BookingException.Reason.OVERLOADED, "Unable to book such a busy event");
+    }
+    var start = this.nowSupplier.get();
+    return Uni.createFrom().deferred(booking::get)
+      .onTermination().invoke((item, failure, cancelled) -> limit.released(
+        Duration.between(start, this.nowSupplier.get()),
+        failure != null && BookingException.Reason.of(failure) == BookingException.Reason.INFRASTRUCTURE
+      ));
+  }
+
+  private <T> Uni<T> refused(final Counter rejections, final BookingException.Reason reason, final String message) {
+    rejections.increment();
+    return Uni.createFrom().failure(new BookingException(reason, message));
+  }
+}
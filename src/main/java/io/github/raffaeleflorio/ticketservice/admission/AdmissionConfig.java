@@ -0,0 +1,103 @@
+package io.github.raffaeleflorio.ticketservice.admission;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+/**
+ * The typed configuration of the admission control of bookings
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+@ConfigMapping(prefix = "ticket-service.booking.admission")
+interface AdmissionConfig {
+
+  /**
+   * Emits whether bookings go through the admission control
+   *
+   * @return True if the admission control is enabled
+   */
+  @WithDefault("true")
+  Boolean enabled();
+
+  /**
+   * Emits the lowest concurrent bookings of an event the adaptive limit can go down to
+   *
+   * @return The min concurrency
+   */
+  @WithDefault("1")
+  Integer minConcurrency();
+
+  /**
+   * Emits the highest concurrent bookings of an event the adaptive limit can go up to
+   *
+   * @return The max concurrency
+   */
+  @WithDefault("8")
+  Integer maxConcurrency();
+
+  /**
+   * Emits the latency of a booking over which the adaptive limit is decreased
+   *
+   * @return The target latency
+   */
+  @WithDefault("50MS")
+  Duration targetLatency();
+
+  /**
+   * Emits the ratio the adaptive limit is multiplied by when it's decreased
+   *
+   * @return The backoff ratio
+   */
+  @WithDefault("0.9")
+  Double backoffRatio();
+
+  /**
+   * Emits the bookings per second sustained by an event
+   *
+   * @return The event rate
+   */
+  @WithDefault("200")
+  Double eventRate();
+
+  /**
+   * Emits the bookings an event accepts at once over its rate
+   *
+   * @return The event burst
+   */
+  @WithDefault("50")
+  Integer eventBurst();
+
+  /**
+   * Emits the bookings per second sustained by a participant
+   *
+   * @return The participant rate
+   */
+  @WithDefault("1")
+  Double participantRate();
+
+  /**
+   * Emits the bookings a participant makes at once over its rate
+   *
+   * @return The participant burst
+   */
+  @WithDefault("3")
+  Integer participantBurst();
+
+  /**
+   * Emits the number of remembered rate limits over which the idle ones are evicted
+   *
+   * @return The max size
+   */
+  @WithDefault("100000")
+  Integer maxSize();
+
+  /**
+   * Emits the min interval between two evictions of the idle concurrency limits
+   *
+   * @return The sweep interval
+   */
+  @WithDefault("1S")
+  Duration sweepInterval();
+}
@@ -0,0 +1,63 @@
+package io.github.raffaeleflorio.ticketservice.admission;
+
+import io.github.raffaeleflorio.ticketservice.Event;
+import io.smallrye.mutiny.Uni;
+
+import javax.json.JsonObject;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * An {@link Event} whose bookings and holds go through an {@link Admission}
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class AdmittedEvent implements Event {
+
+  private final UUID id;
+  private final Event origin;
+  private final Admission admission;
+
+  /**
+   * Builds an event
+   *
+   * @param id        The event's id
+   * @param origin    The decorated event
+   * @param admission The admission control
+   */
+  AdmittedEvent(final UUID id, final Event origin, final Admission admission) {
+    this.id = id;
+    this.origin = origin;
+    this.admission = admission;
+  }
+
+  @Override
+  public Uni<JsonObject> asJsonObject() {
+    return this.origin.asJsonObject();
+  }
+
+  @Override
+  public Uni<UUID> ticket(final UUID participant) {
+    return this.admission.admitted(this.id, List.of(participant), () -> this.origin.ticket(participant));
+  }
+
+  @Override
+  public Uni<List<UUID>> tickets(final List<UUID> participants) {
+    return this.admission.admitted(this.id, participants, () -> this.origin.tickets(participants));
+  }
+
+  @Override
+  public Uni<UUID> hold(final UUID participant) {
+    return this.admission.admitted(this.id, List.of(participant), () -> this.origin.hold(participant));
+  }
+
+  @Override
+  public Uni<UUID> confirm(final UUID hold) {
+    return this.origin.confirm(hold);
+  }
+
+  @Override
+  public Uni<Void> release(final UUID hold) {
+    return this.origin.release(hold);
+  }
+}
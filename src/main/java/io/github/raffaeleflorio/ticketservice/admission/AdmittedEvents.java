@@ -0,0 +1,89 @@
+package io.github.raffaeleflorio.ticketservice.admission;
+
+import io.github.raffaeleflorio.ticketservice.Event;
+import io.github.raffaeleflorio.ticketservice.Events;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+
+import javax.json.JsonObject;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * {@link Events} whose bookings go through an {@link Admission}
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+public final class AdmittedEvents implements Events {
+
+  private final Events origin;
+  private final Admission admission;
+
+  /**
+   * Builds events
+   *
+   * @param origin    The decorated events
+   * @param admission The admission control
+   */
+  public AdmittedEvents(final Events origin, final Admission admission) {
+    this.origin = origin;
+    this.admission = admission;
+  }
+
+  @Override
+  public Uni<Event> event(final JsonObject event) {
+    return this.origin.event(event);
+  }
+
+  @Override
+  public Uni<List<Event>> events(final List<JsonObject> events) {
+    return this.origin.events(events);
+  }
+
+  @Override
+  public Multi<Event> event(final UUID id) {
+    return this.origin.event(id)
+      .onItem().transform(event -> new AdmittedEvent(id, event, this.admission));
+  }
+
+  @Override
+  public Events upcoming() {
+    return new AdmittedEvents(this.origin.upcoming(), this.admission);
+  }
+
+  @Override
+  public Events after(final OffsetDateTime date, final UUID id) {
+    return new AdmittedEvents(this.origin.after(date, id), this.admission);
+  }
+
+  @Override
+  public Events since(final OffsetDateTime date) {
+    return new AdmittedEvents(this.origin.since(date), this.admission);
+  }
+
+  @Override
+  public Events until(final OffsetDateTime date) {
+    return new AdmittedEvents(this.origin.until(date), this.admission);
+  }
+
+  @Override
+  public Events available() {
+    return new AdmittedEvents(this.origin.available(), this.admission);
+  }
+
+  @Override
+  public Events first(final Integer size) {
+    return new AdmittedEvents(this.origin.first(size), this.admission);
+  }
+
+  @Override
+  public Uni<JsonObject> asJsonObject() {
+    return this.origin.asJsonObject();
+  }
+
+  @Override
+  public Multi<JsonObject> asJsonStream() {
+    return this.origin.asJsonStream();
+  }
+}
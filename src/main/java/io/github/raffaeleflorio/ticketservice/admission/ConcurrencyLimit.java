@@ -0,0 +1,85 @@
+package io.github.raffaeleflorio.ticketservice.admission;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An adaptive limit of concurrent bookings, adjusted by additive increase and multiplicative decrease.
+ * A booking slower than the target latency, or failed because of the infrastructure, decreases the limit; any other
+ * one increases it by a whole booking every limit bookings. The limit stays within its bounds.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class ConcurrencyLimit {
+
+  private final Integer min;
+  private final Integer max;
+  private final Duration targetLatency;
+  private final Double backoffRatio;
+  private final AtomicInteger inFlight;
+  private volatile double limit;
+
+  /**
+   * Builds a limit starting from its upper bound
+   *
+   * @param min           The lower bound
+   * @param max           The upper bound
+   * @param targetLatency The latency over which the limit is decreased
+   * @param backoffRatio  The ratio the limit is multiplied by when it's decreased
+   */
+  ConcurrencyLimit(final Integer min, final Integer max, final Duration targetLatency, final Double backoffRatio) {
+    this(min, max, targetLatency, backoffRatio, new AtomicInteger(), max);
+  }
+
+  ConcurrencyLimit(
+    final Integer min,
+    final Integer max,
+    final Duration targetLatency,
+    final Double backoffRatio,
+    final AtomicInteger inFlight,
+    final Integer limit
+  ) {
+    this.min = min;
+    this.max = max;
+    this.targetLatency = targetLatency;
+    this.backoffRatio = backoffRatio;
+    this.inFlight = inFlight;
+    this.limit = limit;
+  }
+
+  /**
+   * Acquires a slot
+   *
+   * @return True if the bookings in flight were under the limit
+   */
+  Boolean acquired() {
+    var current = (int) this.limit;
+    return this.inFlight.getAndUpdate(inFlight -> inFlight < current ? inFlight + 1 : inFlight) < current;
+  }
+
+  /**
+   * Emits whether it has no bookings in flight
+   *
+   * @return True if it's idle
+   */
+  Boolean idle() {
+    return this.inFlight.get() == 0;
+  }
+
+  /**
+   * Releases a slot, adjusting the limit by the outcome of its booking
+   *
+   * @param latency    The booking's latency
+   * @param overloaded True if the booking failed because of the infrastructure
+   */
+  void released(final Duration latency, final Boolean overloaded) {
+    this.inFlight.decrementAndGet();
+    synchronized (this) {
+      if (overloaded || latency.compareTo(this.targetLatency) > 0) {
+        this.limit = Math.max(this.min, this.limit * this.backoffRatio);
+      } else {
+        this.limit = Math.min(this.max, this.limit + 1 / this.limit);
+      }
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package io.github.raffaeleflorio.ticketservice.admission;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * A {@link ConcurrencyLimit} for each key, created on its first use.
+ * Limits without bookings in flight are evicted when there are too many, at most once per sweep interval.
+ * An evicted limit starts again from its upper bound.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class ConcurrencyLimits {
+
+  private final Supplier<ConcurrencyLimit> limitSupplier;
+  private final Integer maxSize;
+  private final Duration sweepInterval;
+  private final ConcurrentMap<UUID, ConcurrencyLimit> limits;
+  private final AtomicReference<Instant> nextSweep;
+  private final Supplier<Instant> nowSupplier;
+
+  /**
+   * Builds the limits
+   *
+   * @param limitSupplier The supplier of a new limit
+   * @param maxSize       The number of limits over which idle ones are evicted
+   * @param sweepInterval The min interval between two evictions
+   */
+  ConcurrencyLimits(
+    final Supplier<ConcurrencyLimit> limitSupplier,
+    final Integer maxSize,
+    final Duration sweepInterval
+  ) {
+    this(
+      limitSupplier,
+      maxSize,
+      sweepInterval,
+      new ConcurrentHashMap<>(),
+      new AtomicReference<>(Instant.MIN),
+      Instant::now
+    );
+  }
+
+  ConcurrencyLimits(
+    final Supplier<ConcurrencyLimit> limitSupplier,
+    final Integer maxSize,
+    final Duration sweepInterval,
+    final ConcurrentMap<UUID, ConcurrencyLimit> limits,
+    final AtomicReference<Instant> nextSweep,
+    final Supplier<Instant> nowSupplier
+  ) {
+    this.limitSupplier = limitSupplier;
+    this.maxSize = maxSize;
+    this.sweepInterval = sweepInterval;
+    this.limits = limits;
+    this.nextSweep = nextSweep;
+    this.nowSupplier = nowSupplier;
+  }
+
+  /**
+   * Emits the limit of a key
+   *
+   * @param key The key
+   * @return The limit
+   */
+  ConcurrencyLimit limit(final UUID key) {
+    if (this.limits.size() > this.maxSize) {
+      this.sweep();
+    }
+    return this.limits.computeIfAbsent(key, ignored -> this.limitSupplier.get());
+  }
+
+  private void sweep() {
+    var now = this.nowSupplier.get();
+    var nextSweep = this.nextSweep.get();
+    if (now.isAfter(nextSweep) && this.nextSweep.compareAndSet(nextSweep, now.plus(this.sweepInterval))) {
+      this.limits.values().removeIf(ConcurrencyLimit::idle);
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package io.github.raffaeleflorio.ticketservice.admission;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+
+/**
+ * A token bucket that refills at a steady rate up to its burst
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class TokenBucket {
+
+  private final Double rate;
+  private final Integer burst;
+  private final Supplier<Instant> nowSupplier;
+  private double tokens;
+  private Instant refilled;
+
+  /**
+   * Builds a full bucket
+   *
+   * @param rate        The tokens added per second
+   * @param burst       The max tokens
+   * @param nowSupplier The supplier of now
+   */
+  TokenBucket(final Double rate, final Integer burst, final Supplier<Instant> nowSupplier) {
+    this.rate = rate;
+    this.burst = burst;
+    this.nowSupplier = nowSupplier;
+    this.tokens = burst;
+    this.refilled = nowSupplier.get();
+  }
+
+  /**
+   * Takes a token
+   *
+   * @return True if a token was available
+   */
+  synchronized Boolean taken() {
+    this.refill();
+    if (this.tokens < 1) {
+      return false;
+    }
+    this.tokens -= 1;
+    return true;
+  }
+
+  /**
+   * Gives back a taken token
+   */
+  synchronized void refunded() {
+    this.refill();
+    this.tokens = Math.min(this.burst, this.tokens + 1);
+  }
+
+  /**
+   * Emits whether it's full, that is its tokens weren't taken for a while
+   *
+   * @return True if it's full
+   */
+  synchronized Boolean full() {
+    this.refill();
+    return this.tokens >= this.burst;
+  }
+
+  private void refill() {
+    var now = this.nowSupplier.get();
+    var elapsed = Duration.between(this.refilled, now).toNanos();
+    if (elapsed > 0) {
+      this.tokens = Math.min(this.burst, this.tokens + elapsed * this.rate / 1_000_000_000d);
+      this.refilled = now;
+    }
+  }
+}
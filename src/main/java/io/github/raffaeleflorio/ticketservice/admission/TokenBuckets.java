@@ -0,0 +1,89 @@
+package io.github.raffaeleflorio.ticketservice.admission;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * A {@link TokenBucket} for each key, created on its first use.
+ * A full bucket is equivalent to a missing one, so full buckets are evicted when there are too many.
+ * They're swept at most once per the time an empty bucket takes to refill.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class TokenBuckets {
+
+  private final Double rate;
+  private final Integer burst;
+  private final Integer maxSize;
+  private final ConcurrentMap<UUID, TokenBucket> buckets;
+  private final AtomicReference<Instant> nextSweep;
+  private final Supplier<Instant> nowSupplier;
+
+  /**
+   * Builds the buckets
+   *
+   * @param rate    The tokens added per second to each bucket
+   * @param burst   The max tokens of each bucket
+   * @param maxSize The number of buckets over which full ones are evicted
+   */
+  TokenBuckets(final Double rate, final Integer burst, final Integer maxSize) {
+    this(rate, burst, maxSize, new ConcurrentHashMap<>(), new AtomicReference<>(Instant.MIN), Instant::now);
+  }
+
+  TokenBuckets(
+    final Double rate,
+    final Integer burst,
+    final Integer maxSize,
+    final ConcurrentMap<UUID, TokenBucket> buckets,
+    final AtomicReference<Instant> nextSweep,
+    final Supplier<Instant> nowSupplier
+  ) {
+    this.rate = rate;
+    this.burst = burst;
+    this.maxSize = maxSize;
+    this.buckets = buckets;
+    this.nextSweep = nextSweep;
+    this.nowSupplier = nowSupplier;
+  }
+
+  /**
+   * Takes a token from the bucket of a key
+   *
+   * @param key The key
+   * @return True if a token was available
+   */
+  Boolean taken(final UUID key) {
+    if (this.buckets.size() > this.maxSize) {
+      this.sweep();
+    }
+    return this.buckets
+      .computeIfAbsent(key, ignored -> new TokenBucket(this.rate, this.burst, this.nowSupplier))
+      .taken();
+  }
+
+  /**
+   * Gives back a token taken from the bucket of a key
+   *
+   * @param key The key
+   */
+  void refunded(final UUID key) {
+    var bucket = this.buckets.get(key);
+    if (bucket != null) {
+      bucket.refunded();
+    }
+  }
+
+  private void sweep() {
+    var now = this.nowSupplier.get();
+    var nextSweep = this.nextSweep.get();
+    var refill = Duration.ofNanos((long) Math.ceil(this.burst / this.rate * 1_000_000_000d));
+    if (now.isAfter(nextSweep) && this.nextSweep.compareAndSet(nextSweep, now.plus(refill))) {
+      this.buckets.values().removeIf(TokenBucket::full);
+    }
+  }
+}
@@ -13,7 +13,7 @@ import javax.ws.rs.*;
  * @author Raffaele Florio (raffaeleflorio@protonmail.com)
  * @see <a href="https://buttercms.com/docs/api/">API documentation</a>
  */
-@RegisterRestClient(baseUri = "https://api.buttercms.com/v2")
+@RegisterRestClient(baseUri = "https://api.buttercms.com/v2", configKey = "butter")
 @RegisterClientHeaders(ApiTokenHeadersFactory.class)
 @Consumes("application/json")
 @Produces("application/json")
@@ -25,4 +25,12 @@ public interface Butter {
     @PathParam("page_type_slug") String pageTypeSlug,
     @PathParam("page_slug") String pageSlug
   );
+
+  @GET
+  @Path("/pages/{page_type_slug}/")
+  Uni<JsonObject> getMultiplePages(
+    @PathParam("page_type_slug") String pageTypeSlug,
+    @QueryParam("page") Integer page,
+    @QueryParam("page_size") Integer pageSize
+  );
 }
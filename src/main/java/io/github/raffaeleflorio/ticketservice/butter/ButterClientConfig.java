@@ -0,0 +1,63 @@
+package io.github.raffaeleflorio.ticketservice.butter;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+/**
+ * The typed configuration of the resilience of Butter's client
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+@ConfigMapping(prefix = "ticket-service.butter.client")
+interface ButterClientConfig {
+
+  /**
+   * Emits how long a call waits for Butter's response
+   *
+   * @return The timeout
+   */
+  @WithDefault("5S")
+  Duration timeout();
+
+  /**
+   * Emits the max number of concurrent calls. Further calls are rejected
+   *
+   * @return The max number of concurrent calls
+   */
+  @WithDefault("16")
+  Integer maxConcurrentCalls();
+
+  /**
+   * Emits the number of consecutive failures that opens the circuit breaker
+   *
+   * @return The failure threshold
+   */
+  @WithDefault("5")
+  Integer failureThreshold();
+
+  /**
+   * Emits how long the circuit breaker stays open before a trial call
+   *
+   * @return The open delay
+   */
+  @WithDefault("30S")
+  Duration openDelay();
+
+  /**
+   * Emits how long a single page is cached
+   *
+   * @return The cache time to live
+   */
+  @WithDefault("2S")
+  Duration cacheTtl();
+
+  /**
+   * Emits the max number of cached single pages
+   *
+   * @return The cache max size
+   */
+  @WithDefault("256")
+  Integer cacheMaxSize();
+}
@@ -0,0 +1,48 @@
+package io.github.raffaeleflorio.ticketservice.butter;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Produces;
+import javax.ws.rs.WebApplicationException;
+
+@ApplicationScoped
+class ButterFactories {
+
+  private final Butter restClient;
+  private final ButterClientConfig config;
+  private final MeterRegistry registry;
+
+  ButterFactories(@RestClient final Butter restClient, final ButterClientConfig config, final MeterRegistry registry) {
+    this.restClient = restClient;
+    this.config = config;
+    this.registry = registry;
+  }
+
+  @Produces
+  @ApplicationScoped
+  Butter butter() {
+    var circuitBreaker = new CircuitBreaker(
+      this.config.failureThreshold(),
+      this.config.openDelay(),
+      ButterFactories::outage
+    );
+    for (var state : CircuitBreaker.State.values()) {
+      Gauge.builder("ticket-service.butter.circuit-breaker.state", () -> circuitBreaker.state() == state ? 1 : 0)
+        .description("Whether Butter's circuit breaker is in the tagged state")
+        .tag("state", state.name().toLowerCase())
+        .register(this.registry);
+    }
+    return new ResilientButter(this.restClient, this.config, circuitBreaker, this.registry);
+  }
+
+  private static Boolean outage(final Throwable failure) {
+    if (!(failure instanceof WebApplicationException)) {
+      return true;
+    }
+    var status = ((WebApplicationException) failure).getResponse().getStatus();
+    return status >= 500 || status == 429;
+  }
+}
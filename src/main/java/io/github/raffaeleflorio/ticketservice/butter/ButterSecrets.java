@@ -0,0 +1,97 @@
+package io.github.raffaeleflorio.ticketservice.butter;
+
+import io.quarkus.security.identity.SecurityIdentity;
+import io.quarkus.security.runtime.QuarkusSecurityIdentity;
+import io.smallrye.mutiny.Uni;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The secrets shared with Butter to authenticate its webhook calls.
+ * More than one secret is active during a rotation.
+ * A candidate is compared with every secret in constant time, without allocations.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+@ApplicationScoped
+final class ButterSecrets {
+
+  private final byte[][] secrets;
+  private final Uni<SecurityIdentity> identity;
+
+  /**
+   * Builds the secrets
+   *
+   * @param secret          The current secret
+   * @param previousSecrets The secrets still accepted during a rotation
+   */
+  @Inject
+  ButterSecrets(
+    @ConfigProperty(name = "buttercms-webhook.secret") final String secret,
+    @ConfigProperty(name = "buttercms-webhook.previous-secrets") final Optional<List<String>> previousSecrets
+  ) {
+    this(ButterSecrets.all(secret, previousSecrets.orElse(List.of())));
+  }
+
+  ButterSecrets(final List<String> secrets) {
+    this(
+      secrets.stream().map(secret -> secret.getBytes(StandardCharsets.ISO_8859_1)).toArray(byte[][]::new),
+      Uni.createFrom().item(
+        QuarkusSecurityIdentity.builder()
+          .setPrincipal(() -> "butter")
+          .addRole("BUTTER")
+          .build()
+      )
+    );
+  }
+
+  ButterSecrets(final byte[][] secrets, final Uni<SecurityIdentity> identity) {
+    this.secrets = secrets;
+    this.identity = identity;
+  }
+
+  private static List<String> all(final String secret, final List<String> previousSecrets) {
+    var all = new ArrayList<String>();
+    all.add(secret);
+    all.addAll(previousSecrets);
+    return all;
+  }
+
+  /**
+   * Verifies a candidate secret, as received in an HTTP header
+   *
+   * @param candidate The candidate secret
+   * @return True if it's one of the secrets
+   */
+  Boolean verify(final CharSequence candidate) {
+    var verified = 0;
+    for (var secret : this.secrets) {
+      verified |= this.equal(candidate, secret);
+    }
+    return verified == 1;
+  }
+
+  private int equal(final CharSequence candidate, final byte[] secret) {
+    var difference = candidate.length() ^ secret.length;
+    for (var i = 0; i < secret.length; i++) {
+      var c = i < candidate.length() ? candidate.charAt(i) : 0;
+      difference |= c ^ (secret[i] & 0xff);
+    }
+    return (difference - 1) >>> 31;
+  }
+
+  /**
+   * Emits the identity of Butter. The same identity is shared by every authenticated call
+   *
+   * @return The identity
+   */
+  Uni<SecurityIdentity> identity() {
+    return this.identity;
+  }
+}
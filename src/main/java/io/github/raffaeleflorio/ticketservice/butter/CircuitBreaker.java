@@ -0,0 +1,111 @@
+package io.github.raffaeleflorio.ticketservice.butter;
+
+import io.smallrye.mutiny.Uni;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * A circuit breaker that opens after consecutive failures.
+ * Once the open delay elapses, it lets a single trial call through: it closes if the trial succeeds.
+ * A cancelled call counts as failed, while a failure that doesn't come from an outage counts as succeeded.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class CircuitBreaker {
+
+  /**
+   * The states of a circuit breaker
+   */
+  enum State {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  private final Integer failureThreshold;
+  private final Duration openDelay;
+  private final Predicate<Throwable> outage;
+  private final LongSupplier nanoTimeSupplier;
+  private final AtomicReference<State> state;
+  private final AtomicInteger failures;
+  private final AtomicLong openedAt;
+
+  /**
+   * Builds a closed circuit breaker
+   *
+   * @param failureThreshold The number of consecutive failures that opens it
+   * @param openDelay        How long it stays open before a trial call
+   * @param outage           Whether a failure comes from an outage of the callee
+   */
+  CircuitBreaker(final Integer failureThreshold, final Duration openDelay, final Predicate<Throwable> outage) {
+    this(failureThreshold, openDelay, outage, System::nanoTime);
+  }
+
+  CircuitBreaker(
+    final Integer failureThreshold,
+    final Duration openDelay,
+    final Predicate<Throwable> outage,
+    final LongSupplier nanoTimeSupplier
+  ) {
+    this.failureThreshold = failureThreshold;
+    this.openDelay = openDelay;
+    this.outage = outage;
+    this.nanoTimeSupplier = nanoTimeSupplier;
+    this.state = new AtomicReference<>(State.CLOSED);
+    this.failures = new AtomicInteger();
+    this.openedAt = new AtomicLong();
+  }
+
+  /**
+   * Calls through it
+   *
+   * @param call The call
+   * @param <T>  The call's result type
+   * @return The call's result or a failure if it's open
+   */
+  <T> Uni<T> call(final Supplier<Uni<T>> call) {
+    if (!this.permitted()) {
+      return Uni.createFrom().failure(new RuntimeException("Butter's circuit breaker is open"));
+    }
+    return Uni.createFrom().deferred(call::get)
+      .onItem().invoke(this::succeeded)
+      .onFailure(this.outage).invoke(this::failed)
+      .onFailure(this.outage.negate()).invoke(this::succeeded)
+      .onCancellation().invoke(this::failed);
+  }
+
+  private Boolean permitted() {
+    var current = this.state.get();
+    if (current == State.CLOSED) {
+      return true;
+    }
+    return current == State.OPEN
+      && this.nanoTimeSupplier.getAsLong() - this.openedAt.get() >= this.openDelay.toNanos()
+      && this.state.compareAndSet(State.OPEN, State.HALF_OPEN);
+  }
+
+  private void succeeded() {
+    this.failures.set(0);
+    this.state.set(State.CLOSED);
+  }
+
+  private void failed() {
+    if (this.state.get() == State.HALF_OPEN || this.failures.incrementAndGet() >= this.failureThreshold) {
+      this.openedAt.set(this.nanoTimeSupplier.getAsLong());
+      this.state.set(State.OPEN);
+    }
+  }
+
+  /**
+   * Emits its state
+   *
+   * @return The state
+   */
+  State state() {
+    return this.state.get();
+  }
+}
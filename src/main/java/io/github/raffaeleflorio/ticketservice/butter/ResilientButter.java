@@ -0,0 +1,182 @@
+package io.github.raffaeleflorio.ticketservice.butter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.smallrye.mutiny.Uni;
+
+import javax.json.JsonObject;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * {@link Butter} that protects its callers from a slow or failing origin.
+ * Each call is bounded by a timeout, a circuit breaker and a bulkhead, that rejects calls beyond the allowed
+ * concurrency instead of queueing them. The bulkhead comes first, so its rejections don't trip the circuit breaker.
+ * Single pages are cached for a short time.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class ResilientButter implements Butter {
+
+  private final Butter origin;
+  private final Duration timeout;
+  private final CircuitBreaker circuitBreaker;
+  private final Semaphore bulkhead;
+  private final Duration cacheTtl;
+  private final Integer cacheMaxSize;
+  private final ConcurrentMap<List<String>, CachedPage> cache;
+  private final LongSupplier nanoTimeSupplier;
+  private final Map<List<String>, Timer> latencies;
+  private final Counter cacheHits;
+  private final Counter cacheMisses;
+
+  /**
+   * Builds the client
+   *
+   * @param origin         The decorated client
+   * @param config         The resilience configuration
+   * @param circuitBreaker The circuit breaker
+   * @param registry       The meter registry
+   */
+  ResilientButter(
+    final Butter origin,
+    final ButterClientConfig config,
+    final CircuitBreaker circuitBreaker,
+    final MeterRegistry registry
+  ) {
+    this(
+      origin,
+      config.timeout(),
+      circuitBreaker,
+      new Semaphore(config.maxConcurrentCalls()),
+      config.cacheTtl(),
+      config.cacheMaxSize(),
+      new ConcurrentHashMap<>(),
+      System::nanoTime,
+      Map.of(
+        List.of("getSinglePage", "success"), ResilientButter.latency(registry, "getSinglePage", "success"),
+        List.of("getSinglePage", "failure"), ResilientButter.latency(registry, "getSinglePage", "failure"),
+        List.of("getMultiplePages", "success"), ResilientButter.latency(registry, "getMultiplePages", "success"),
+        List.of("getMultiplePages", "failure"), ResilientButter.latency(registry, "getMultiplePages", "failure")
+      ),
+      ResilientButter.lookups(registry, "hit"),
+      ResilientButter.lookups(registry, "miss")
+    );
+  }
+
+  ResilientButter(
+    final Butter origin,
+    final Duration timeout,
+    final CircuitBreaker circuitBreaker,
+    final Semaphore bulkhead,
+    final Duration cacheTtl,
+    final Integer cacheMaxSize,
+    final ConcurrentMap<List<String>, CachedPage> cache,
+    final LongSupplier nanoTimeSupplier,
+    final Map<List<String>, Timer> latencies,
+    final Counter cacheHits,
+    final Counter cacheMisses
+  ) {
+    this.origin = origin;
+    this.timeout = timeout;
+    this.circuitBreaker = circuitBreaker;
+    this.bulkhead = bulkhead;
+    this.cacheTtl = cacheTtl;
+    this.cacheMaxSize = cacheMaxSize;
+    this.cache = cache;
+    this.nanoTimeSupplier = nanoTimeSupplier;
+    this.latencies = latencies;
+    this.cacheHits = cacheHits;
+    this.cacheMisses = cacheMisses;
+  }
+
+  private static Timer latency(final MeterRegistry registry, final String method, final String outcome) {
+    return Timer.builder("ticket-service.butter.calls")
+      .description("Calls to Butter's API")
+      .tag("method", method)
+      .tag("outcome", outcome)
+      .publishPercentileHistogram()
+      .register(registry);
+  }
+
+  private static Counter lookups(final MeterRegistry registry, final String result) {
+    return Counter.builder("ticket-service.butter.cache.lookups")
+      .description("Lookups of Butter's single pages in the short-lived cache")
+      .tag("result", result)
+      .register(registry);
+  }
+
+  @Override
+  public Uni<JsonObject> getSinglePage(final String pageTypeSlug, final String pageSlug) {
+    var key = List.of(pageTypeSlug, pageSlug);
+    var cached = this.cache.get(key);
+    if (cached != null && cached.fresh(this.nanoTimeSupplier.getAsLong())) {
+      this.cacheHits.increment();
+      return Uni.createFrom().item(cached.page());
+    }
+    this.cacheMisses.increment();
+    return this.called("getSinglePage", () -> this.origin.getSinglePage(pageTypeSlug, pageSlug))
+      .onItem().invoke(page -> this.cache(key, page));
+  }
+
+  private void cache(final List<String> key, final JsonObject page) {
+    var now = this.nanoTimeSupplier.getAsLong();
+    if (this.cache.size() >= this.cacheMaxSize) {
+      this.cache.values().removeIf(cached -> !cached.fresh(now));
+    }
+    if (this.cache.size() < this.cacheMaxSize) {
+      this.cache.put(key, new CachedPage(page, now + this.cacheTtl.toNanos()));
+    }
+  }
+
+  @Override
+  public Uni<JsonObject> getMultiplePages(final String pageTypeSlug, final Integer page, final Integer pageSize) {
+    return this.called("getMultiplePages", () -> this.origin.getMultiplePages(pageTypeSlug, page, pageSize));
+  }
+
+  private <T> Uni<T> called(final String method, final Supplier<Uni<T>> call) {
+    return this.bulkheaded(() -> this.circuitBreaker.call(() -> this.timed(method, call)));
+  }
+
+  private <T> Uni<T> bulkheaded(final Supplier<Uni<T>> call) {
+    if (!this.bulkhead.tryAcquire()) {
+      return Uni.createFrom().failure(new RuntimeException("Too many concurrent calls to Butter"));
+    }
+    return Uni.createFrom().deferred(call::get)
+      .onTermination().invoke(this.bulkhead::release);
+  }
+
+  private <T> Uni<T> timed(final String method, final Supplier<Uni<T>> call) {
+    var sample = Timer.start();
+    return Uni.createFrom().deferred(call::get)
+      .ifNoItem().after(this.timeout).fail()
+      .onItem().invoke(() -> sample.stop(this.latencies.get(List.of(method, "success"))))
+      .onFailure().invoke(() -> sample.stop(this.latencies.get(List.of(method, "failure"))));
+  }
+
+  private static final class CachedPage {
+
+    private final JsonObject page;
+    private final Long expiration;
+
+    CachedPage(final JsonObject page, final Long expiration) {
+      this.page = page;
+      this.expiration = expiration;
+    }
+
+    JsonObject page() {
+      return this.page;
+    }
+
+    Boolean fresh(final Long now) {
+      return now - this.expiration < 0;
+    }
+  }
+}
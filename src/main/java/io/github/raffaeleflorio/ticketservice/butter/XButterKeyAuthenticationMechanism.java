@@ -6,6 +6,7 @@ import io.quarkus.security.identity.request.AuthenticationRequest;
 import io.quarkus.vertx.http.runtime.security.ChallengeData;
 import io.quarkus.vertx.http.runtime.security.HttpAuthenticationMechanism;
 import io.smallrye.mutiny.Uni;
+import io.vertx.core.http.HttpHeaders;
 import io.vertx.ext.web.RoutingContext;
 
 import javax.enterprise.context.ApplicationScoped;
@@ -13,21 +14,35 @@ import java.util.Collections;
 import java.util.Set;
 
 /**
- * A mechanism to authenticate Butter through the X-BUTTER-KEY header
+ * A mechanism to authenticate Butter through the X-BUTTER-KEY header.
+ * It verifies the header against the shared secrets directly, without building an authentication request.
  *
  * @author Raffaele Florio (raffaeleflorio@protonmail.com)
  */
 @ApplicationScoped
 final class XButterKeyAuthenticationMechanism implements HttpAuthenticationMechanism {
 
+  private static final CharSequence X_BUTTER_KEY = HttpHeaders.createOptimized("X-BUTTER-KEY");
+
+  private final ButterSecrets secrets;
+
+  /**
+   * Builds the mechanism
+   *
+   * @param secrets The shared secrets
+   */
+  XButterKeyAuthenticationMechanism(final ButterSecrets secrets) {
+    this.secrets = secrets;
+  }
+
   @Override
   public Uni<SecurityIdentity> authenticate(
     final RoutingContext context,
     final IdentityProviderManager identityProviderManager
   ) {
-    if (context.request().headers().contains("X-BUTTER-KEY")) {
-      var request = new XButterKeyAuthenticationRequest(context.request().getHeader("X-BUTTER-KEY"));
-      return identityProviderManager.authenticate(request);
+    var key = context.request().getHeader(X_BUTTER_KEY);
+    if (key != null && this.secrets.verify(key)) {
+      return this.secrets.identity();
     }
     return Uni.createFrom().nullItem();
   }
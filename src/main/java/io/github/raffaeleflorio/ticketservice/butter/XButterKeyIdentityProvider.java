@@ -3,29 +3,27 @@ package io.github.raffaeleflorio.ticketservice.butter;
 import io.quarkus.security.identity.AuthenticationRequestContext;
 import io.quarkus.security.identity.IdentityProvider;
 import io.quarkus.security.identity.SecurityIdentity;
-import io.quarkus.security.runtime.QuarkusSecurityIdentity;
 import io.smallrye.mutiny.Uni;
-import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import javax.enterprise.context.ApplicationScoped;
 
 /**
- * An identity provider to authenticate Butter according a shared secret
+ * An identity provider to authenticate Butter according the shared secrets
  *
  * @author Raffaele Florio (raffaeleflorio@protonmail.com)
  */
 @ApplicationScoped
 final class XButterKeyIdentityProvider implements IdentityProvider<XButterKeyAuthenticationRequest> {
 
-  private final String secret;
+  private final ButterSecrets secrets;
 
   /**
    * Builds the provider
    *
-   * @param secret The shared secret value
+   * @param secrets The shared secrets
    */
-  XButterKeyIdentityProvider(@ConfigProperty(name = "buttercms-webhook.secret") final String secret) {
-    this.secret = secret;
+  XButterKeyIdentityProvider(final ButterSecrets secrets) {
+    this.secrets = secrets;
   }
 
   @Override
@@ -38,18 +36,9 @@ final class XButterKeyIdentityProvider implements IdentityProvider<XButterKeyAut
     final XButterKeyAuthenticationRequest xButterKeyAuthenticationRequest,
     final AuthenticationRequestContext authenticationRequestContext
   ) {
-    if (xButterKeyAuthenticationRequest.verify(request -> request.equals(this.secret))) {
-      return this.butterSecurityIdentity();
+    if (xButterKeyAuthenticationRequest.verify(this.secrets::verify)) {
+      return this.secrets.identity();
     }
     return Uni.createFrom().nullItem();
   }
-
-  private Uni<SecurityIdentity> butterSecurityIdentity() {
-    return Uni.createFrom().item(
-      QuarkusSecurityIdentity.builder()
-        .setPrincipal(() -> "butter")
-        .addRole("BUTTER")
-        .build()
-    );
-  }
 }
@@ -0,0 +1,254 @@
+package io.github.raffaeleflorio.ticketservice.butter.newevent;
+
+import io.github.raffaeleflorio.ticketservice.Events;
+import io.github.raffaeleflorio.ticketservice.butter.Butter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.StartupEvent;
+import io.r2dbc.spi.R2dbcNonTransientException;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.ws.rs.WebApplicationException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * The catalogue of events published on Butter.
+ * A sync pages through it with bounded concurrency and upserts each page of events in a single transaction, one
+ * event after the other. Malformed events are logged and skipped before the upsert.
+ * Concurrent requests of a sync share the running one.
+ * A startup sync that failed for a transient reason is logged and retried with an exponential backoff until it
+ * completes, while any other failure is logged and the sync is given up.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+@ApplicationScoped
+final class ButterCatalogue {
+
+  private final Butter butter;
+  private final Events events;
+  private final Integer pageSize;
+  private final Integer concurrency;
+  private final Boolean onStartup;
+  private final Duration initialBackoff;
+  private final Duration maxBackoff;
+  private final AtomicReference<Uni<JsonObject>> running;
+  private final AtomicLong lastSync;
+  private final Counter pages;
+  private final Counter syncedEvents;
+  private final Counter invalidEvents;
+  private final Timer duration;
+  private final Logger log;
+
+  /**
+   * Builds the catalogue
+   *
+   * @param butter         The Butter's API
+   * @param events         The events
+   * @param pageSize       The number of events fetched by a request
+   * @param concurrency    The max number of pages fetched and upserted concurrently
+   * @param onStartup      Whether a sync runs at startup
+   * @param initialBackoff The delay before retrying a failed startup sync the first time
+   * @param maxBackoff     The max delay before retrying a failed startup sync
+   * @param registry       The meter registry
+   */
+  @Inject
+  ButterCatalogue(
+    final Butter butter,
+    final Events events,
+    @ConfigProperty(name = "ticket-service.butter.sync.page-size", defaultValue = "100") final Integer pageSize,
+    @ConfigProperty(name = "ticket-service.butter.sync.concurrency", defaultValue = "4") final Integer concurrency,
+    @ConfigProperty(name = "ticket-service.butter.sync.on-startup", defaultValue = "true") final Boolean onStartup,
+    @ConfigProperty(
+      name = "ticket-service.butter.sync.initial-backoff",
+      defaultValue = "1S"
+    ) final Duration initialBackoff,
+    @ConfigProperty(
+      name = "ticket-service.butter.sync.max-backoff",
+      defaultValue = "1M"
+    ) final Duration maxBackoff,
+    final MeterRegistry registry
+  ) {
+    this(
+      butter,
+      events,
+      pageSize,
+      concurrency,
+      onStartup,
+      initialBackoff,
+      maxBackoff,
+      new AtomicReference<>(),
+      new AtomicLong(System.nanoTime()),
+      Counter.builder("ticket-service.butter.sync.pages")
+        .description("Pages of events fetched from Butter by syncs")
+        .register(registry),
+      ButterCatalogue.events(registry, "synced"),
+      ButterCatalogue.events(registry, "invalid"),
+      Timer.builder("ticket-service.butter.sync.duration")
+        .description("Duration of the syncs of the Butter catalogue")
+        .register(registry),
+      Logger.getLogger(ButterCatalogue.class)
+    );
+    TimeGauge.builder(
+        "ticket-service.butter.sync.lag",
+        this.lastSync,
+        TimeUnit.NANOSECONDS,
+        last -> System.nanoTime() - last.get()
+      )
+      .description("Time since the last completed sync, or since startup")
+      .register(registry);
+  }
+
+  ButterCatalogue(
+    final Butter butter,
+    final Events events,
+    final Integer pageSize,
+    final Integer concurrency,
+    final Boolean onStartup,
+    final Duration initialBackoff,
+    final Duration maxBackoff,
+    final AtomicReference<Uni<JsonObject>> running,
+    final AtomicLong lastSync,
+    final Counter pages,
+    final Counter syncedEvents,
+    final Counter invalidEvents,
+    final Timer duration,
+    final Logger log
+  ) {
+    this.butter = butter;
+    this.events = events;
+    this.pageSize = pageSize;
+    this.concurrency = concurrency;
+    this.onStartup = onStartup;
+    this.initialBackoff = initialBackoff;
+    this.maxBackoff = maxBackoff;
+    this.running = running;
+    this.lastSync = lastSync;
+    this.pages = pages;
+    this.syncedEvents = syncedEvents;
+    this.invalidEvents = invalidEvents;
+    this.duration = duration;
+    this.log = log;
+  }
+
+  private static Counter events(final MeterRegistry registry, final String outcome) {
+    return Counter.builder("ticket-service.butter.sync.events")
+      .description("Events read from Butter by syncs")
+      .tag("outcome", outcome)
+      .register(registry);
+  }
+
+  void start(@Observes final StartupEvent startupEvent) {
+    if (this.onStartup) {
+      Uni.createFrom().deferred(this::synced)
+        .onFailure().invoke(failure -> this.log.warn("Unable to sync the Butter catalogue at startup", failure))
+        .onFailure(this::retriable).retry().withBackOff(this.initialBackoff, this.maxBackoff).indefinitely()
+        .subscribe().with(
+          synced -> this.log.infof("Synced the Butter catalogue at startup: %s", synced),
+          failure -> this.log.error("Gave up syncing the Butter catalogue at startup", failure)
+        );
+    }
+  }
+
+  private Boolean retriable(final Throwable failure) {
+    for (var cause = failure; cause != null; cause = cause.getCause()) {
+      if (cause instanceof WebApplicationException) {
+        var status = ((WebApplicationException) cause).getResponse().getStatus();
+        return status >= 500 || status == 429;
+      }
+      if (
+        cause instanceof R2dbcNonTransientException
+          || cause instanceof JsonException
+          || cause instanceof NullPointerException
+          || cause instanceof ClassCastException
+      ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Upserts all the events published on Butter
+   *
+   * @return The sync outcome as {"pages": ..., "events": ...}
+   */
+  Uni<JsonObject> synced() {
+    var sync = new AtomicReference<Uni<JsonObject>>();
+    sync.set(
+      Uni.createFrom().deferred(this::sync)
+        .onTermination().invoke(() -> this.running.compareAndSet(sync.get(), null))
+        .memoize().indefinitely()
+    );
+    return this.running.updateAndGet(running -> running != null ? running : sync.get());
+  }
+
+  private Uni<JsonObject> sync() {
+    var sample = Timer.start();
+    return this.page(1)
+      .onItem().transformToUni(first -> Multi.createBy().concatenating().streams(
+            Multi.createFrom().item(first),
+            Multi.createFrom().range(2, this.lastPage(first) + 1)
+              .onItem().transformToUni(this::page).merge(this.concurrency)
+          )
+          .onItem().transformToUni(this::upserted).merge(this.concurrency)
+          .collect().with(Collectors.summingInt(Integer::intValue))
+          .onItem().transform(events -> Json.createObjectBuilder()
+            .add("pages", this.lastPage(first))
+            .add("events", events)
+            .build()
+          )
+      )
+      .onItem().invoke(() -> this.lastSync.set(System.nanoTime()))
+      .onTermination().invoke(() -> sample.stop(this.duration));
+  }
+
+  private Uni<JsonObject> page(final Integer page) {
+    return this.butter.getMultiplePages("event", page, this.pageSize)
+      .onItem().invoke(() -> this.pages.increment());
+  }
+
+  private Integer lastPage(final JsonObject page) {
+    var count = page.getJsonObject("meta").getInt("count");
+    return Math.max(1, (count + this.pageSize - 1) / this.pageSize);
+  }
+
+  private Uni<Integer> upserted(final JsonObject page) {
+    var events = page.getJsonArray("data").getValuesAs(JsonObject.class).stream()
+      .map(this::event)
+      .flatMap(Optional::stream)
+      .collect(Collectors.toList());
+    if (events.isEmpty()) {
+      return Uni.createFrom().item(0);
+    }
+    return this.events.events(events)
+      .onItem().transform(List::size)
+      .onItem().invoke(synced -> this.syncedEvents.increment(synced));
+  }
+
+  private Optional<JsonObject> event(final JsonObject eventData) {
+    try {
+      return Optional.of(new ButterEventPage(eventData).asJsonObject());
+    } catch (RuntimeException e) {
+      this.log.warnf(e, "Skipped the malformed Butter event %s", eventData.get("slug"));
+      this.invalidEvents.increment();
+      return Optional.empty();
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package io.github.raffaeleflorio.ticketservice.butter.newevent;
+
+import io.github.raffaeleflorio.ticketservice.Events;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * The data of a Butter's page of the event type.
+ * Its fields are validated against the events' columns, so that a malformed page fails before reaching the database.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class ButterEventPage {
+
+  private final JsonObject eventData;
+
+  /**
+   * Builds the page
+   *
+   * @param eventData The page's data
+   */
+  ButterEventPage(final JsonObject eventData) {
+    this.eventData = eventData;
+  }
+
+  /**
+   * Emits the event's description as expected by {@link Events#event(JsonObject)}
+   *
+   * @return The event's description
+   * @throws RuntimeException If a field is missing or malformed
+   */
+  JsonObject asJsonObject() {
+    return Json.createObjectBuilder()
+      .add("origin", "BUTTER")
+      .add("externalId", this.slug())
+      .add("title", this.title())
+      .add("description", this.description())
+      .add("poster", this.poster())
+      .add("date", this.date())
+      .add("maxTickets", this.maxTickets())
+      .build();
+  }
+
+  private String slug() {
+    return this.bounded(this.eventData.getString("slug"), 64);
+  }
+
+  private String bounded(final String field, final Integer maxLength) {
+    if (field.length() > maxLength) {
+      throw new IllegalArgumentException(String.format("Field longer than %d characters", maxLength));
+    }
+    return field;
+  }
+
+  private String title() {
+    return this.bounded(this.eventFields().getString("title"), 32);
+  }
+
+  private JsonObject eventFields() {
+    return this.eventData.getJsonObject("fields");
+  }
+
+  private String description() {
+    return this.bounded(this.eventFields().getString("description"), 1024);
+  }
+
+  private String poster() {
+    return this.bounded(this.eventFields().getString("poster"), 255);
+  }
+
+  private String date() {
+    var date = this.eventFields().getString("date");
+    return LocalDateTime.parse(date).atOffset(ZoneOffset.UTC).toString();
+  }
+
+  private Integer maxTickets() {
+    var maxTickets = Integer.parseInt(this.eventFields().getString("maxtickets"));
+    if (maxTickets < 0) {
+      throw new IllegalArgumentException("Negative max tickets");
+    }
+    return maxTickets;
+  }
+}
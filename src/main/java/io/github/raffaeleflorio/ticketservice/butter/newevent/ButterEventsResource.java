@@ -1,37 +1,49 @@
 package io.github.raffaeleflorio.ticketservice.butter.newevent;
 
-import io.github.raffaeleflorio.ticketservice.Events;
-import io.github.raffaeleflorio.ticketservice.NewEvent;
-import io.github.raffaeleflorio.ticketservice.butter.Butter;
+import io.github.raffaeleflorio.ticketservice.Inbox;
 import io.smallrye.mutiny.Uni;
-import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.jboss.resteasy.reactive.RestResponse;
 
 import javax.annotation.security.RolesAllowed;
-import javax.inject.Inject;
 import javax.json.JsonObject;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
-import java.util.function.Function;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
 
 @Path("/butter/events")
 public final class ButterEventsResource {
 
-  private final Events events;
-  private final Function<JsonObject, NewEvent> newEventFn;
+  private final Inbox inbox;
+  private final RecentNotifications recentNotifications;
+  private final ButterCatalogue catalogue;
 
-  @Inject
-  public ButterEventsResource(final Events events, @RestClient final Butter butter) {
-    this(events, notification -> new NewEventFromButterWebHook(notification, butter));
+  public ButterEventsResource(
+    final Inbox inbox,
+    final RecentNotifications recentNotifications,
+    final ButterCatalogue catalogue
+  ) {
+    this.inbox = inbox;
+    this.recentNotifications = recentNotifications;
+    this.catalogue = catalogue;
   }
 
-  ButterEventsResource(final Events events, final Function<JsonObject, NewEvent> newEventFn) {
-    this.events = events;
-    this.newEventFn = newEventFn;
+  @POST
+  @RolesAllowed("BUTTER")
+  public Uni<RestResponse<Void>> addEvent(final JsonObject eventPage) {
+    if (!this.recentNotifications.first(eventPage)) {
+      return Uni.createFrom().item(RestResponse.accepted());
+    }
+    return this.inbox.notification(eventPage)
+      .onFailure().invoke(() -> this.recentNotifications.forget(eventPage))
+      .onItem().transform(stored -> RestResponse.accepted());
   }
 
   @POST
+  @Path("/sync")
   @RolesAllowed("BUTTER")
-  public Uni<Void> addEvent(final JsonObject eventPage) {
-    return this.newEventFn.apply(eventPage).update(this.events);
+  @Produces(MediaType.APPLICATION_JSON)
+  public Uni<JsonObject> sync() {
+    return this.catalogue.synced();
   }
 }
@@ -0,0 +1,149 @@
+package io.github.raffaeleflorio.ticketservice.butter.newevent;
+
+import io.github.raffaeleflorio.ticketservice.Events;
+import io.github.raffaeleflorio.ticketservice.Inbox;
+import io.github.raffaeleflorio.ticketservice.NewEvent;
+import io.github.raffaeleflorio.ticketservice.butter.Butter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.Cancellable;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.json.JsonObject;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * The worker that drains Butter's webhook notifications from the {@link Inbox}.
+ * Drains happen one at a time, each one handling a bounded number of notifications concurrently.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+@ApplicationScoped
+final class ButterNotifications {
+
+  private final Inbox inbox;
+  private final Events events;
+  private final Function<JsonObject, NewEvent> newEventFn;
+  private final RecentNotifications recentNotifications;
+  private final Duration pollInterval;
+  private final Integer batchSize;
+  private final Integer concurrency;
+  private final AtomicLong depth;
+  private final AtomicReference<Cancellable> drains;
+  private final Timer handledTimer;
+  private final Timer failedTimer;
+
+  /**
+   * Builds the worker
+   *
+   * @param inbox               The inbox
+   * @param events              The events
+   * @param butter              The Butter's API
+   * @param recentNotifications The notifications received recently
+   * @param pollInterval        The interval between two drains
+   * @param batchSize           The max number of notifications handled by a drain
+   * @param concurrency         The max number of notifications handled concurrently
+   * @param registry            The meter registry
+   */
+  @Inject
+  ButterNotifications(
+    final Inbox inbox,
+    final Events events,
+    final Butter butter,
+    final RecentNotifications recentNotifications,
+    @ConfigProperty(name = "ticket-service.butter.notifications.poll-interval", defaultValue = "1S")
+    final Duration pollInterval,
+    @ConfigProperty(name = "ticket-service.butter.notifications.batch-size", defaultValue = "32")
+    final Integer batchSize,
+    @ConfigProperty(name = "ticket-service.butter.notifications.concurrency", defaultValue = "4")
+    final Integer concurrency,
+    final MeterRegistry registry
+  ) {
+    this(
+      inbox,
+      events,
+      notification -> new NewEventFromButterWebHook(notification, butter),
+      recentNotifications,
+      pollInterval,
+      batchSize,
+      concurrency,
+      registry.gauge("ticket-service.inbox.depth", new AtomicLong()),
+      new AtomicReference<>(),
+      ButterNotifications.processing(registry, "handled"),
+      ButterNotifications.processing(registry, "failed")
+    );
+  }
+
+  ButterNotifications(
+    final Inbox inbox,
+    final Events events,
+    final Function<JsonObject, NewEvent> newEventFn,
+    final RecentNotifications recentNotifications,
+    final Duration pollInterval,
+    final Integer batchSize,
+    final Integer concurrency,
+    final AtomicLong depth,
+    final AtomicReference<Cancellable> drains,
+    final Timer handledTimer,
+    final Timer failedTimer
+  ) {
+    this.inbox = inbox;
+    this.events = events;
+    this.newEventFn = newEventFn;
+    this.recentNotifications = recentNotifications;
+    this.pollInterval = pollInterval;
+    this.batchSize = batchSize;
+    this.concurrency = concurrency;
+    this.depth = depth;
+    this.drains = drains;
+    this.handledTimer = handledTimer;
+    this.failedTimer = failedTimer;
+  }
+
+  private static Timer processing(final MeterRegistry registry, final String outcome) {
+    return Timer.builder("ticket-service.butter.notifications.processing")
+      .description("Time spent to handle a Butter's webhook notification drained from the inbox")
+      .tag("outcome", outcome)
+      .publishPercentileHistogram()
+      .register(registry);
+  }
+
+  void start(@Observes final StartupEvent startupEvent) {
+    this.drains.set(
+      Multi.createFrom().ticks().every(this.pollInterval)
+        .onOverflow().drop()
+        .onItem().transformToUniAndConcatenate(tick -> this.inbox
+          .drained(this.batchSize, this.concurrency, this::handled)
+          .onItem().transformToUni(drained -> this.inbox.depth())
+          .onItem().invoke(this.depth::set)
+          .onFailure().recoverWithNull()
+        )
+        .subscribe().with(depth -> { })
+    );
+  }
+
+  private Uni<Void> handled(final JsonObject notification) {
+    var sample = Timer.start();
+    return Uni.createFrom().deferred(() -> this.newEventFn.apply(notification).update(this.events))
+      .onItem().invoke(() -> sample.stop(this.handledTimer))
+      .onItem().invoke(() -> this.recentNotifications.forget(notification))
+      .onFailure().invoke(() -> sample.stop(this.failedTimer));
+  }
+
+  void stop(@Observes final ShutdownEvent shutdownEvent) {
+    var drains = this.drains.getAndSet(null);
+    if (drains != null) {
+      drains.cancel();
+    }
+  }
+}
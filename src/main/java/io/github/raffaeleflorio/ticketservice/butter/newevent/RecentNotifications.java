@@ -0,0 +1,97 @@
+package io.github.raffaeleflorio.ticketservice.butter.newevent;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.json.JsonObject;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * The webhook notifications received within a short window and still pending in the inbox.
+ * Butter retries a notification on timeout, so the same payload can arrive more than once.
+ * A notification is forgotten once it's handled, so a later edit with the same payload is accepted again.
+ * Expired notifications are swept at most once per window.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+@ApplicationScoped
+final class RecentNotifications {
+
+  private final Duration window;
+  private final Integer maxSize;
+  private final ConcurrentMap<String, Instant> notifications;
+  private final AtomicReference<Instant> nextSweep;
+  private final Supplier<Instant> nowSupplier;
+
+  /**
+   * Builds the recent notifications
+   *
+   * @param window  How long a notification is remembered
+   * @param maxSize The number of remembered notifications over which expired ones are evicted
+   */
+  @Inject
+  RecentNotifications(
+    @ConfigProperty(name = "ticket-service.butter.notifications.dedup-window", defaultValue = "30S")
+    final Duration window,
+    @ConfigProperty(name = "ticket-service.butter.notifications.dedup-max-size", defaultValue = "1024")
+    final Integer maxSize
+  ) {
+    this(window, maxSize, new ConcurrentHashMap<>(), new AtomicReference<>(Instant.MIN), Instant::now);
+  }
+
+  RecentNotifications(
+    final Duration window,
+    final Integer maxSize,
+    final ConcurrentMap<String, Instant> notifications,
+    final AtomicReference<Instant> nextSweep,
+    final Supplier<Instant> nowSupplier
+  ) {
+    this.window = window;
+    this.maxSize = maxSize;
+    this.notifications = notifications;
+    this.nextSweep = nextSweep;
+    this.nowSupplier = nowSupplier;
+  }
+
+  /**
+   * Remembers a notification
+   *
+   * @param notification The notification
+   * @return True if it wasn't received within the window
+   */
+  Boolean first(final JsonObject notification) {
+    var now = this.nowSupplier.get();
+    var expiration = now.plus(this.window);
+    var nextSweep = this.nextSweep.get();
+    if (
+      this.notifications.size() > this.maxSize
+        && now.isAfter(nextSweep)
+        && this.nextSweep.compareAndSet(nextSweep, expiration)
+    ) {
+      this.notifications.values().removeIf(now::isAfter);
+    }
+    var previous = this.notifications.get(notification.toString());
+    if (previous != null && !now.isAfter(previous)) {
+      return false;
+    }
+    return previous == null
+      ? this.notifications.putIfAbsent(notification.toString(), expiration) == null
+      : this.notifications.replace(notification.toString(), previous, expiration);
+  }
+
+  /**
+   * Forgets a notification, so that it's accepted again.
+   * It happens when the notification wasn't stored or once it's handled.
+   *
+   * @param notification The notification
+   */
+  void forget(final JsonObject notification) {
+    this.notifications.remove(notification.toString());
+  }
+}
@@ -0,0 +1,27 @@
+package io.github.raffaeleflorio.ticketservice.client;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Produces;
+import javax.inject.Singleton;
+
+@ApplicationScoped
+class ClientMetricsFactories {
+
+  @Produces
+  @Singleton
+  MeterFilter httpServerHistograms() {
+    return new MeterFilter() {
+      @Override
+      public DistributionStatisticConfig configure(final Meter.Id id, final DistributionStatisticConfig config) {
+        if ("http.server.requests".equals(id.getName())) {
+          return DistributionStatisticConfig.builder().percentilesHistogram(true).build().merge(config);
+        }
+        return config;
+      }
+    };
+  }
+}
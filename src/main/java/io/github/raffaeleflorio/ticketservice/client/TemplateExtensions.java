@@ -5,6 +5,8 @@ import io.quarkus.qute.TemplateExtension;
 import javax.json.JsonObject;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Set of Qute template extension methods
@@ -15,6 +17,8 @@ import java.time.format.DateTimeFormatter;
 @TemplateExtension
 public final class TemplateExtensions {
 
+  private static final ConcurrentMap<String, DateTimeFormatter> FORMATTERS = new ConcurrentHashMap<>();
+
   /**
    * Retrieves an {@link OffsetDateTime} value to which a key maps
    *
@@ -27,13 +31,14 @@ public final class TemplateExtensions {
   }
 
   /**
-   * Formats an {@link OffsetDateTime} according a pattern
+   * Formats an {@link OffsetDateTime} according a pattern.
+   * The formatter of each pattern is built once.
    *
    * @param offsetDateTime The offset date time
    * @param pattern        The pattern
    * @return The formatted offset date time
    */
   public static String format(final OffsetDateTime offsetDateTime, final String pattern) {
-    return offsetDateTime.format(DateTimeFormatter.ofPattern(pattern));
+    return offsetDateTime.format(FORMATTERS.computeIfAbsent(pattern, DateTimeFormatter::ofPattern));
   }
 }
@@ -0,0 +1,82 @@
+package io.github.raffaeleflorio.ticketservice.client.events;
+
+import io.github.raffaeleflorio.ticketservice.BookingException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.Map;
+
+/**
+ * The outcomes of the bookings requested by clients, counted by kind.
+ * A failure is counted by the reason of its {@link BookingException}: any other failure is an infrastructure one.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+@ApplicationScoped
+final class BookingOutcomes {
+
+  private final Counter booked;
+  private final Counter notFound;
+  private final Map<BookingException.Reason, Counter> refusals;
+
+  /**
+   * Builds the outcomes
+   *
+   * @param registry The meter registry
+   */
+  @Inject
+  BookingOutcomes(final MeterRegistry registry) {
+    this(
+      BookingOutcomes.outcome(registry, "booked"),
+      BookingOutcomes.outcome(registry, "not-found"),
+      Map.of(
+        BookingException.Reason.SOLD_OUT, BookingOutcomes.outcome(registry, "sold-out"),
+        BookingException.Reason.DUPLICATE, BookingOutcomes.outcome(registry, "duplicate"),
+        BookingException.Reason.GONE, BookingOutcomes.outcome(registry, "gone"),
+        BookingException.Reason.INFRASTRUCTURE, BookingOutcomes.outcome(registry, "failed"),
+        BookingException.Reason.THROTTLED, BookingOutcomes.outcome(registry, "throttled"),
+        BookingException.Reason.OVERLOADED, BookingOutcomes.outcome(registry, "shed"),
+        BookingException.Reason.IN_FLIGHT, BookingOutcomes.outcome(registry, "in-flight"),
+        BookingException.Reason.EXPIRED, BookingOutcomes.outcome(registry, "expired")
+      )
+    );
+  }
+
+  BookingOutcomes(final Counter booked, final Counter notFound, final Map<BookingException.Reason, Counter> refusals) {
+    this.booked = booked;
+    this.notFound = notFound;
+    this.refusals = refusals;
+  }
+
+  private static Counter outcome(final MeterRegistry registry, final String outcome) {
+    return Counter.builder("ticket-service.booking.outcomes")
+      .description("Bookings requested by clients")
+      .tag("outcome", outcome)
+      .register(registry);
+  }
+
+  /**
+   * Counts a booked ticket
+   */
+  void booked() {
+    this.booked.increment();
+  }
+
+  /**
+   * Counts a booking of a missing event
+   */
+  void notFound() {
+    this.notFound.increment();
+  }
+
+  /**
+   * Counts a failed booking by the kind of its failure
+   *
+   * @param failure The failure
+   */
+  void failed(final Throwable failure) {
+    this.refusals.get(BookingException.Reason.of(failure)).increment();
+  }
+}
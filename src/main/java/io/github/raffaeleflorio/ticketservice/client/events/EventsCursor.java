@@ -0,0 +1,80 @@
+package io.github.raffaeleflorio.ticketservice.client.events;
+
+import javax.json.JsonObject;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * The opaque cursor of a page of events. It points to the last event of the page by its date and id.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class EventsCursor {
+
+  private final OffsetDateTime date;
+  private final UUID id;
+
+  /**
+   * Builds a cursor pointing to the given event
+   *
+   * @param event The {@link JsonObject} representation of the event
+   */
+  EventsCursor(final JsonObject event) {
+    this(OffsetDateTime.parse(event.getString("date")), UUID.fromString(event.getString("id")));
+  }
+
+  EventsCursor(final OffsetDateTime date, final UUID id) {
+    this.date = date;
+    this.id = id;
+  }
+
+  /**
+   * Builds a cursor from its string representation
+   *
+   * @param cursor The string representation
+   * @return The cursor
+   * @throws IllegalArgumentException If the cursor is malformed
+   */
+  static EventsCursor parsed(final String cursor) {
+    var pieces = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+    if (pieces.length != 2) {
+      throw new IllegalArgumentException("Malformed cursor");
+    }
+    try {
+      return new EventsCursor(OffsetDateTime.parse(pieces[0]), UUID.fromString(pieces[1]));
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("Malformed cursor", e);
+    }
+  }
+
+  /**
+   * Emits the date of the pointed event
+   *
+   * @return The date
+   */
+  OffsetDateTime date() {
+    return this.date;
+  }
+
+  /**
+   * Emits the id of the pointed event
+   *
+   * @return The id
+   */
+  UUID id() {
+    return this.id;
+  }
+
+  /**
+   * Emits its string representation
+   *
+   * @return The string representation
+   */
+  String asString() {
+    return Base64.getUrlEncoder().withoutPadding()
+      .encodeToString(String.format("%s|%s", this.date, this.id).getBytes(StandardCharsets.UTF_8));
+  }
+}
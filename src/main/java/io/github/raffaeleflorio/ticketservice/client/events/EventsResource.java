@@ -1,71 +1,376 @@
 package io.github.raffaeleflorio.ticketservice.client.events;
 
+import io.github.raffaeleflorio.ticketservice.BookingException;
 import io.github.raffaeleflorio.ticketservice.Event;
 import io.github.raffaeleflorio.ticketservice.Events;
-import io.quarkus.qute.Location;
-import io.quarkus.qute.Template;
-import io.quarkus.qute.TemplateInstance;
+import io.github.raffaeleflorio.ticketservice.live.LiveAvailability;
+import io.github.raffaeleflorio.ticketservice.versions.Versions;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.resteasy.reactive.RestResponse;
+import org.jboss.resteasy.reactive.RestStreamElementType;
+import org.jboss.resteasy.reactive.common.util.RestMediaType;
 
+import javax.json.Json;
+import javax.json.JsonArray;
 import javax.json.JsonObject;
+import javax.json.JsonString;
 import javax.ws.rs.*;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import java.net.URI;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Path("/events")
 public final class EventsResource {
 
   private final Events events;
-  private final Template eventsHTMLTemplate;
-  private final Template eventHTMLTemplate;
+  private final RenderedEvents renderedEvents;
+  private final Versions versions;
+  private final LiveAvailability liveAvailability;
+  private final Integer maxGroupSize;
+  private final Integer maxPageSize;
+  private final BookingOutcomes bookingOutcomes;
+  private final Duration retryAfter;
 
   public EventsResource(
     final Events events,
-    @Location("client/events.html") final Template eventsHTMLTemplate,
-    @Location("client/event.html") final Template eventHTMLTemplate
+    final RenderedEvents renderedEvents,
+    final Versions versions,
+    final LiveAvailability liveAvailability,
+    final BookingOutcomes bookingOutcomes,
+    @ConfigProperty(name = "ticket-service.booking.max-group-size", defaultValue = "10") final Integer maxGroupSize,
+    @ConfigProperty(name = "ticket-service.events.max-page-size", defaultValue = "100") final Integer maxPageSize,
+    @ConfigProperty(name = "ticket-service.booking.retry-after", defaultValue = "1S") final Duration retryAfter
   ) {
     this.events = events;
-    this.eventsHTMLTemplate = eventsHTMLTemplate;
-    this.eventHTMLTemplate = eventHTMLTemplate;
+    this.renderedEvents = renderedEvents;
+    this.versions = versions;
+    this.liveAvailability = liveAvailability;
+    this.maxGroupSize = maxGroupSize;
+    this.maxPageSize = maxPageSize;
+    this.bookingOutcomes = bookingOutcomes;
+    this.retryAfter = retryAfter;
   }
 
   @GET
   @Produces(MediaType.APPLICATION_JSON)
-  public Uni<JsonObject> upcomingEventsAsJson() {
-    return this.events.upcoming().asJsonObject();
+  public Uni<RestResponse<JsonObject>> upcomingEventsAsJson(
+    @HeaderParam(HttpHeaders.IF_NONE_MATCH) final String ifNoneMatch,
+    @QueryParam("after") final String after,
+    @QueryParam("since") final String since,
+    @QueryParam("until") final String until,
+    @QueryParam("available") final String available,
+    @QueryParam("limit") final String limit
+  ) {
+    var tag = this.tag(this.versions.collection(), "json");
+    if (this.matches(ifNoneMatch, tag)) {
+      return Uni.createFrom().item(this.notModified(tag));
+    }
+    if (after == null && since == null && until == null && available == null && limit == null) {
+      return this.events.upcoming().asJsonObject()
+        .onItem().transform(events -> this.ok(events, tag));
+    }
+    final Integer size;
+    final Boolean onlyAvailable;
+    try {
+      size = limit == null ? this.maxPageSize : this.integer(limit);
+      onlyAvailable = this.bool(available);
+    } catch (IllegalArgumentException e) {
+      return Uni.createFrom().item(RestResponse.status(400));
+    }
+    if (size < 1 || size > this.maxPageSize) {
+      return Uni.createFrom().item(RestResponse.status(400));
+    }
+    return Uni.createFrom().item(() -> this.page(after, since, until, onlyAvailable, size))
+      .onItem().transformToUni(Events::asJsonObject)
+      .onItem().transform(events -> this.ok(this.paged(events, size), tag))
+      .onFailure(IllegalArgumentException.class).recoverWithItem(() -> RestResponse.status(400));
+  }
+
+  @GET
+  @Produces(RestMediaType.APPLICATION_NDJSON)
+  @RestStreamElementType(MediaType.APPLICATION_JSON)
+  public Multi<JsonObject> upcomingEventsAsNdJson(
+    @QueryParam("after") final String after,
+    @QueryParam("since") final String since,
+    @QueryParam("until") final String until,
+    @QueryParam("available") final String available,
+    @QueryParam("limit") final String limit
+  ) {
+    try {
+      var size = limit == null ? null : this.integer(limit);
+      if (size != null && size < 1) {
+        throw new BadRequestException();
+      }
+      return this.page(after, since, until, this.bool(available), size).asJsonStream();
+    } catch (IllegalArgumentException e) {
+      throw new BadRequestException(e);
+    }
+  }
+
+  private Integer integer(final String integer) {
+    try {
+      return Integer.valueOf(integer);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Malformed integer", e);
+    }
+  }
+
+  private Boolean bool(final String bool) {
+    if (bool == null) {
+      return null;
+    }
+    if (bool.equalsIgnoreCase("true") || bool.equalsIgnoreCase("false")) {
+      return Boolean.valueOf(bool);
+    }
+    throw new IllegalArgumentException("Malformed boolean");
+  }
+
+  private Events page(
+    final String after,
+    final String since,
+    final String until,
+    final Boolean available,
+    final Integer size
+  ) {
+    var page = this.events.upcoming();
+    if (after != null) {
+      var cursor = EventsCursor.parsed(after);
+      page = page.after(cursor.date(), cursor.id());
+    }
+    if (since != null) {
+      page = page.since(this.date(since));
+    }
+    if (until != null) {
+      page = page.until(this.date(until));
+    }
+    if (Boolean.TRUE.equals(available)) {
+      page = page.available();
+    }
+    return size == null ? page : page.first(size);
+  }
+
+  private OffsetDateTime date(final String date) {
+    try {
+      return OffsetDateTime.parse(date);
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("Malformed date", e);
+    }
+  }
+
+  private JsonObject paged(final JsonObject events, final Integer size) {
+    var list = events.getJsonArray("events").getValuesAs(JsonObject.class);
+    if (list.size() < size) {
+      return events;
+    }
+    return Json.createObjectBuilder(events)
+      .add("next", new EventsCursor(list.get(list.size() - 1)).asString())
+      .build();
   }
 
   @GET
   @Produces(MediaType.TEXT_HTML)
-  public Uni<TemplateInstance> upcomingEventsAsHtml() {
+  public Uni<RestResponse<byte[]>> upcomingEventsAsHtml(
+    @HeaderParam(HttpHeaders.IF_NONE_MATCH) final String ifNoneMatch
+  ) {
+    var tag = this.tag(this.versions.collection(), "html");
+    if (this.matches(ifNoneMatch, tag)) {
+      return Uni.createFrom().item(this.notModified(tag));
+    }
     return this.events.upcoming().asJsonObject()
-      .onItem().transform(this.eventsHTMLTemplate::data);
+      .onItem().transform(this.renderedEvents::page)
+      .onItem().transform(page -> this.ok(page, tag));
   }
 
+  @GET
+  @Path("availability")
+  @Produces(MediaType.SERVER_SENT_EVENTS)
+  @RestStreamElementType(MediaType.APPLICATION_JSON)
+  public Multi<JsonObject> availabilityChanges() {
+    return this.liveAvailability.changes();
+  }
 
   @GET
   @Path("{id}")
   @Produces(MediaType.TEXT_HTML)
-  public Uni<RestResponse<TemplateInstance>> eventAsHtmlFragment(@PathParam("id") final UUID id) {
+  public Uni<RestResponse<byte[]>> eventAsHtmlFragment(
+    @PathParam("id") final UUID id,
+    @HeaderParam(HttpHeaders.IF_NONE_MATCH) final String ifNoneMatch
+  ) {
+    var tag = this.tag(this.versions.event(id), "html");
+    if (this.matches(ifNoneMatch, tag)) {
+      return Uni.createFrom().item(this.notModified(tag));
+    }
     return this.events.event(id)
       .onItem().transformToUniAndMerge(Event::asJsonObject)
-      .onItem().transform(this.eventHTMLTemplate::data)
-      .onItem().transform(RestResponse::ok)
+      .onItem().transform(this.renderedEvents::event)
+      .onItem().transform(fragment -> this.ok(fragment, tag))
       .onCompletion().ifEmpty().continueWith(RestResponse.notFound())
       .toUni();
   }
 
+  private EntityTag tag(final String version, final String representation) {
+    return new EntityTag(String.format("%s-%s", version, representation));
+  }
+
+  private Boolean matches(final String ifNoneMatch, final EntityTag tag) {
+    return ifNoneMatch != null && Arrays.stream(ifNoneMatch.split(","))
+      .map(String::strip)
+      .map(candidate -> candidate.startsWith("W/") ? candidate.substring(2) : candidate)
+      .anyMatch(candidate -> candidate.equals("*") || candidate.equals(String.format("\"%s\"", tag.getValue())));
+  }
+
+  private <T> RestResponse<T> notModified(final EntityTag tag) {
+    return RestResponse.ResponseBuilder.<T>create(RestResponse.Status.NOT_MODIFIED)
+      .tag(tag)
+      .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+      .build();
+  }
+
+  private <T> RestResponse<T> ok(final T entity, final EntityTag tag) {
+    return RestResponse.ResponseBuilder.ok(entity)
+      .tag(tag)
+      .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+      .build();
+  }
+
   @POST
   @Path("/{id}/tickets")
   public Uni<RestResponse<Void>> bookTicket(
     @PathParam("id") final UUID id,
     @HeaderParam("participant") final UUID participant
   ) {
-    return this.events.upcoming().event(id)
+    return this.upcoming(id)
       .onItem().transformToUniAndMerge(event -> event.ticket(participant))
+      .onItem().invoke(ticketId -> this.bookingOutcomes.booked())
+      .onItem().transform(ticketId -> RestResponse.<Void>accepted())
+      .onFailure().invoke(this.bookingOutcomes::failed)
+      .onFailure().recoverWithItem(this::<Void>refused)
+      .onCompletion().ifEmpty().continueWith(RestResponse.notFound())
+      .toUni()
+      .onItem().invoke(response -> {
+        if (response.getStatus() == 404) {
+          this.bookingOutcomes.notFound();
+        }
+      });
+  }
+
+  private Multi<Event> upcoming(final UUID id) {
+    return this.events.upcoming().event(id)
+      .onCompletion().ifEmpty().switchTo(() -> this.events.event(id)
+        .onItem().transformToUniAndConcatenate(event -> Uni.createFrom().<Event>failure(
+          new BookingException(BookingException.Reason.GONE, "Unable to book a past event")
+        ))
+      );
+  }
+
+  private <T> RestResponse<T> refused(final Throwable failure) {
+    switch (BookingException.Reason.of(failure)) {
+      case SOLD_OUT:
+      case EXPIRED:
+        return RestResponse.status(409);
+      case DUPLICATE:
+        return RestResponse.status(422);
+      case GONE:
+        return RestResponse.status(410);
+      case THROTTLED:
+        return this.retriable(429);
+      default:
+        return this.retriable(503);
+    }
+  }
+
+  private <T> RestResponse<T> retriable(final Integer status) {
+    return RestResponse.ResponseBuilder.<T>create(status)
+      .header(HttpHeaders.RETRY_AFTER, Math.max(1, this.retryAfter.toSeconds()))
+      .build();
+  }
+
+  @POST
+  @Path("/{id}/tickets/group")
+  @Consumes(MediaType.APPLICATION_JSON)
+  public Uni<RestResponse<Void>> bookGroupTickets(@PathParam("id") final UUID id, final JsonObject group) {
+    final List<UUID> participants;
+    try {
+      participants = this.participants(group);
+    } catch (IllegalArgumentException e) {
+      return Uni.createFrom().item(RestResponse.status(400));
+    }
+    if (!this.bookable(participants)) {
+      return Uni.createFrom().item(RestResponse.status(400));
+    }
+    return this.upcoming(id)
+      .onItem().transformToUniAndMerge(event -> event.tickets(participants))
+      .onItem().transform(ticketsIds -> RestResponse.<Void>accepted())
+      .onFailure().recoverWithItem(this::<Void>refused)
+      .onCompletion().ifEmpty().continueWith(RestResponse.notFound())
+      .toUni();
+  }
+
+  private List<UUID> participants(final JsonObject group) {
+    if (group == null || !(group.get("participants") instanceof JsonArray)) {
+      throw new IllegalArgumentException("Malformed group");
+    }
+    return group.getJsonArray("participants").stream()
+      .map(participant -> {
+        if (!(participant instanceof JsonString)) {
+          throw new IllegalArgumentException("Malformed participant");
+        }
+        return UUID.fromString(((JsonString) participant).getString());
+      })
+      .collect(Collectors.toList());
+  }
+
+  private Boolean bookable(final List<UUID> participants) {
+    return !participants.isEmpty()
+      && participants.size() <= this.maxGroupSize
+      && new HashSet<>(participants).size() == participants.size();
+  }
+
+  @POST
+  @Path("/{id}/holds")
+  public Uni<RestResponse<Void>> holdTicket(
+    @PathParam("id") final UUID id,
+    @HeaderParam("participant") final UUID participant
+  ) {
+    return this.upcoming(id)
+      .onItem().transformToUniAndMerge(event -> event.hold(participant))
+      .onItem().transform(holdId -> URI.create(String.format("/events/%s/holds/%s", id, holdId)))
+      .onItem().transform(RestResponse::<Void>created)
+      .onFailure().recoverWithItem(this::<Void>refused)
+      .onCompletion().ifEmpty().continueWith(RestResponse.notFound())
+      .toUni();
+  }
+
+  @POST
+  @Path("/{id}/holds/{hold}/confirmation")
+  public Uni<RestResponse<Void>> confirmHold(@PathParam("id") final UUID id, @PathParam("hold") final UUID hold) {
+    return this.upcoming(id)
+      .onItem().transformToUniAndMerge(event -> event.confirm(hold))
       .onItem().transform(ticketId -> RestResponse.<Void>accepted())
-      .onFailure().recoverWithItem(() -> RestResponse.status(409))
+      .onFailure().recoverWithItem(this::<Void>refused)
+      .onCompletion().ifEmpty().continueWith(RestResponse.notFound())
+      .toUni();
+  }
+
+  @DELETE
+  @Path("/{id}/holds/{hold}")
+  public Uni<RestResponse<Void>> releaseHold(@PathParam("id") final UUID id, @PathParam("hold") final UUID hold) {
+    return this.events.event(id)
+      .onItem().transformToUniAndMerge(event -> event.release(hold).replaceWith(RestResponse.<Void>noContent()))
+      .onFailure(NoSuchElementException.class).recoverWithItem(() -> RestResponse.notFound())
+      .onFailure().recoverWithItem(this::<Void>refused)
       .onCompletion().ifEmpty().continueWith(RestResponse.notFound())
       .toUni();
   }
@@ -0,0 +1,153 @@
+package io.github.raffaeleflorio.ticketservice.client.events;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.qute.Location;
+import io.quarkus.qute.Template;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.json.JsonObject;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * The HTML representations of events assembled from cached fragments.
+ * An event card is rendered again only when its {@link JsonObject} representation changes,
+ * e.g. because its available tickets changed.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+@ApplicationScoped
+final class RenderedEvents {
+
+  private final Template eventsTemplate;
+  private final Template eventTemplate;
+  private final Template cardTemplate;
+  private final ConcurrentMap<String, Card> cards;
+  private final AtomicReference<Page> page;
+  private final Counter renders;
+
+  /**
+   * Builds the rendered events
+   *
+   * @param eventsTemplate The template of the events page
+   * @param eventTemplate  The template of the event page
+   * @param cardTemplate   The template of the event card
+   * @param registry       The meter registry
+   */
+  @Inject
+  RenderedEvents(
+    @Location("client/events.html") final Template eventsTemplate,
+    @Location("client/event.html") final Template eventTemplate,
+    @Location("client/event_card.html") final Template cardTemplate,
+    final MeterRegistry registry
+  ) {
+    this(
+      eventsTemplate,
+      eventTemplate,
+      cardTemplate,
+      new ConcurrentHashMap<>(),
+      new AtomicReference<>(new Page(null, new byte[0])),
+      Counter.builder("ticket-service.client.events.card-renders")
+        .description("Event cards rendered because missing or changed")
+        .register(registry)
+    );
+  }
+
+  RenderedEvents(
+    final Template eventsTemplate,
+    final Template eventTemplate,
+    final Template cardTemplate,
+    final ConcurrentMap<String, Card> cards,
+    final AtomicReference<Page> page,
+    final Counter renders
+  ) {
+    this.eventsTemplate = eventsTemplate;
+    this.eventTemplate = eventTemplate;
+    this.cardTemplate = cardTemplate;
+    this.cards = cards;
+    this.page = page;
+    this.renders = renders;
+  }
+
+  /**
+   * Builds the HTML page of the given events.
+   * Cards of events no longer listed are forgotten.
+   *
+   * @param events The events as {"events": [...]}
+   * @return The page as UTF-8 bytes
+   */
+  byte[] page(final JsonObject events) {
+    var current = this.page.get();
+    if (events.equals(current.events)) {
+      return current.html;
+    }
+    var list = events.getJsonArray("events").getValuesAs(JsonObject.class);
+    var html = this.eventsTemplate
+      .data("cards", list.stream().map(this::card).map(card -> card.html).collect(Collectors.toList()))
+      .render()
+      .getBytes(StandardCharsets.UTF_8);
+    this.forgetAllBut(list);
+    this.page.compareAndSet(current, new Page(events, html));
+    return html;
+  }
+
+  private void forgetAllBut(final List<JsonObject> events) {
+    Set<String> ids = events.stream().map(event -> event.getString("id")).collect(Collectors.toSet());
+    this.cards.keySet().retainAll(ids);
+  }
+
+  /**
+   * Builds the HTML page of an event
+   *
+   * @param event The event
+   * @return The page as UTF-8 bytes
+   */
+  byte[] event(final JsonObject event) {
+    return this.card(event).page;
+  }
+
+  private Card card(final JsonObject event) {
+    return this.cards.compute(
+      event.getString("id"),
+      (id, card) -> card != null && card.event.equals(event) ? card : this.rendered(id, event)
+    );
+  }
+
+  private Card rendered(final String id, final JsonObject event) {
+    this.renders.increment();
+    var html = this.cardTemplate.render(event);
+    var page = this.eventTemplate.data("id", id).data("card", html).render();
+    return new Card(event, html, page.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static final class Card {
+
+    private final JsonObject event;
+    private final String html;
+    private final byte[] page;
+
+    Card(final JsonObject event, final String html, final byte[] page) {
+      this.event = event;
+      this.html = html;
+      this.page = page;
+    }
+  }
+
+  private static final class Page {
+
+    private final JsonObject events;
+    private final byte[] html;
+
+    Page(final JsonObject events, final byte[] html) {
+      this.events = events;
+      this.html = html;
+    }
+  }
+}
@@ -1,24 +1,45 @@
 package io.github.raffaeleflorio.ticketservice.database;
 
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
 import io.r2dbc.spi.ConnectionFactories;
-import io.r2dbc.spi.ConnectionFactory;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import javax.enterprise.context.ApplicationScoped;
-import javax.ws.rs.Produces;
+import javax.enterprise.inject.Disposes;
+import javax.enterprise.inject.Produces;
+import javax.inject.Singleton;
 
 @ApplicationScoped
 class DbConnectionFactories {
 
   private final String url;
+  private final DbPoolConfig poolConfig;
 
-  DbConnectionFactories(@ConfigProperty(name = "r2dbc.url") final String url) {
+  DbConnectionFactories(
+    @ConfigProperty(name = "r2dbc.url") final String url,
+    final DbPoolConfig poolConfig
+  ) {
     this.url = url;
+    this.poolConfig = poolConfig;
   }
 
   @Produces
-  @ApplicationScoped
-  ConnectionFactory connectionFactory() {
-    return ConnectionFactories.get(this.url);
+  @Singleton
+  ConnectionPool connectionFactory() {
+    var configuration = ConnectionPoolConfiguration.builder(ConnectionFactories.get(this.url))
+      .name("ticket-service")
+      .initialSize(this.poolConfig.initialSize())
+      .maxSize(this.poolConfig.maxSize())
+      .maxAcquireTime(this.poolConfig.acquireTimeout())
+      .maxLifeTime(this.poolConfig.maxLifetime())
+      .maxIdleTime(this.poolConfig.maxIdleTime())
+      .validationDepth(this.poolConfig.validationDepth());
+    this.poolConfig.validationQuery().ifPresent(configuration::validationQuery);
+    return new ConnectionPool(configuration.build());
+  }
+
+  void close(@Disposes final ConnectionPool connectionPool) {
+    connectionPool.dispose();
   }
 }
@@ -0,0 +1,37 @@
+package io.github.raffaeleflorio.ticketservice.database;
+
+import io.r2dbc.spi.Connection;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import org.reactivestreams.Publisher;
+
+import java.util.function.Function;
+
+/**
+ * Scoped access to database connections.
+ * A connection lives as long as the work done with it and it is released on completion, failure and cancellation.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+public interface DbConnections {
+
+  /**
+   * Emits the items published by a work done with a connection.
+   * The work must consume its results before completing, because the connection is released right after.
+   *
+   * @param work The work
+   * @param <T>  The item type
+   * @return The items published by the work
+   */
+  <T> Multi<T> connection(Function<Connection, Publisher<T>> work);
+
+  /**
+   * Emits the item of a work done within a transaction.
+   * The transaction is committed before emitting the item and it is rolled back on failure and cancellation.
+   *
+   * @param work The work
+   * @param <T>  The item type
+   * @return The item of the work
+   */
+  <T> Uni<T> transaction(Function<Connection, Uni<T>> work);
+}
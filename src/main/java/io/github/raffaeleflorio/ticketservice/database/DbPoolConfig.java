@@ -0,0 +1,81 @@
+package io.github.raffaeleflorio.ticketservice.database;
+
+import io.r2dbc.spi.ValidationDepth;
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * The typed configuration of the database connection pool
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+@ConfigMapping(prefix = "ticket-service.db.pool")
+interface DbPoolConfig {
+
+  /**
+   * Emits the connections opened at startup
+   *
+   * @return The initial size
+   */
+  @WithDefault("10")
+  Integer initialSize();
+
+  /**
+   * Emits the max number of open connections
+   *
+   * @return The max size
+   */
+  @WithDefault("10")
+  Integer maxSize();
+
+  /**
+   * Emits how long a request waits for a connection before failing
+   *
+   * @return The acquire timeout
+   */
+  @WithDefault("5S")
+  Duration acquireTimeout();
+
+  /**
+   * Emits how long a connection lives before being replaced
+   *
+   * @return The max lifetime
+   */
+  @WithDefault("30M")
+  Duration maxLifetime();
+
+  /**
+   * Emits how long a connection stays idle before being closed
+   *
+   * @return The max idle time
+   */
+  @WithDefault("10M")
+  Duration maxIdleTime();
+
+  /**
+   * Emits the query used to validate a connection on acquire.
+   * If empty the connection is validated according {@link #validationDepth()}
+   *
+   * @return The validation query or empty
+   */
+  Optional<String> validationQuery();
+
+  /**
+   * Emits the depth of the validation done on acquire and on warm-up
+   *
+   * @return The validation depth
+   */
+  @WithDefault("LOCAL")
+  ValidationDepth validationDepth();
+
+  /**
+   * Emits whether the initial connections are opened and validated at startup
+   *
+   * @return True if the pool is warmed up at startup
+   */
+  @WithDefault("true")
+  Boolean warmup();
+}
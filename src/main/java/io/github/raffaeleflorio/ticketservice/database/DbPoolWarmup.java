@@ -0,0 +1,73 @@
+package io.github.raffaeleflorio.ticketservice.database;
+
+import io.quarkus.runtime.StartupEvent;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.Readiness;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A readiness check that is up once the initial connections of the pool are opened and validated
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+@Readiness
+@ApplicationScoped
+final class DbPoolWarmup implements HealthCheck {
+
+  private final ConnectionPool connectionPool;
+  private final DbPoolConfig poolConfig;
+  private final AtomicBoolean warmedUp;
+
+  /**
+   * Builds the warm-up
+   *
+   * @param connectionPool The connection pool
+   * @param poolConfig     The pool configuration
+   */
+  DbPoolWarmup(final ConnectionPool connectionPool, final DbPoolConfig poolConfig) {
+    this.connectionPool = connectionPool;
+    this.poolConfig = poolConfig;
+    this.warmedUp = new AtomicBoolean(!poolConfig.warmup());
+  }
+
+  void warmup(@Observes final StartupEvent startupEvent) {
+    if (this.poolConfig.warmup()) {
+      Uni.createFrom().publisher(this.connectionPool.warmup())
+        .onItem().transformToMulti(warmed -> Multi.createFrom().range(0, this.poolConfig.initialSize()))
+        .onItem().transformToUniAndMerge(ignored -> this.validated())
+        .collect().last()
+        .onFailure().retry().withBackOff(Duration.ofSeconds(1), Duration.ofSeconds(30)).indefinitely()
+        .subscribe().with(validated -> this.warmedUp.set(true));
+    }
+  }
+
+  private Uni<Boolean> validated() {
+    return Uni.createFrom().<Connection>publisher(this.connectionPool.create())
+      .onItem().transformToUni(connection ->
+        Uni.createFrom().publisher(connection.validate(this.poolConfig.validationDepth()))
+          .onItem().transformToUni(valid -> valid
+            ? Uni.createFrom().item(valid)
+            : Uni.createFrom().<Boolean>failure(new IllegalStateException("Unable to validate a connection"))
+          )
+          .eventually(() -> Uni.createFrom().publisher(connection.close()))
+      );
+  }
+
+  @Override
+  public HealthCheckResponse call() {
+    return HealthCheckResponse.named("ticket-service.db.pool")
+      .status(this.warmedUp.get())
+      .withData("initialSize", this.poolConfig.initialSize())
+      .withData("maxSize", this.poolConfig.maxSize())
+      .build();
+  }
+}
@@ -0,0 +1,165 @@
+package io.github.raffaeleflorio.ticketservice.database;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.PoolMetrics;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import org.reactivestreams.Publisher;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * {@link DbConnections} backed by a {@link ConnectionFactory}.
+ * It records the acquire latency, the transactions outcomes, the latency of their begin, commit and rollback and,
+ * if the factory is a {@link ConnectionPool}, the pool occupancy.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+@ApplicationScoped
+final class ScopedDbConnections implements DbConnections {
+
+  private final ConnectionFactory connectionFactory;
+  private final Timer acquireTimer;
+  private final Counter commits;
+  private final Counter rollbacks;
+  private final Counter cancellations;
+  private final Timer begin;
+  private final Timer commit;
+  private final Timer rollback;
+
+  /**
+   * Builds the connections
+   *
+   * @param connectionFactory The connection factory
+   * @param registry          The registry where metrics are recorded
+   */
+  @Inject
+  ScopedDbConnections(final ConnectionFactory connectionFactory, final MeterRegistry registry) {
+    this(
+      connectionFactory,
+      Timer.builder("ticket-service.db.connection.acquire")
+        .description("Time spent to acquire a database connection")
+        .publishPercentileHistogram()
+        .register(registry),
+      ScopedDbConnections.transactions(registry, "committed"),
+      ScopedDbConnections.transactions(registry, "rolled-back"),
+      ScopedDbConnections.transactions(registry, "cancelled"),
+      ScopedDbConnections.phase(registry, "begin"),
+      ScopedDbConnections.phase(registry, "commit"),
+      ScopedDbConnections.phase(registry, "rollback")
+    );
+    if (connectionFactory instanceof ConnectionPool) {
+      var pool = (ConnectionPool) connectionFactory;
+      this.gauge(registry, pool, "acquired", PoolMetrics::acquiredSize);
+      this.gauge(registry, pool, "idle", PoolMetrics::idleSize);
+      this.gauge(registry, pool, "pending", PoolMetrics::pendingAcquireSize);
+      this.gauge(registry, pool, "allocated", PoolMetrics::allocatedSize);
+      this.gauge(registry, pool, "max", PoolMetrics::getMaxAllocatedSize);
+    }
+  }
+
+  ScopedDbConnections(
+    final ConnectionFactory connectionFactory,
+    final Timer acquireTimer,
+    final Counter commits,
+    final Counter rollbacks,
+    final Counter cancellations,
+    final Timer begin,
+    final Timer commit,
+    final Timer rollback
+  ) {
+    this.connectionFactory = connectionFactory;
+    this.acquireTimer = acquireTimer;
+    this.commits = commits;
+    this.rollbacks = rollbacks;
+    this.cancellations = cancellations;
+    this.begin = begin;
+    this.commit = commit;
+    this.rollback = rollback;
+  }
+
+  private static Counter transactions(final MeterRegistry registry, final String outcome) {
+    return Counter.builder("ticket-service.db.transactions")
+      .description("Finished database transactions")
+      .tag("outcome", outcome)
+      .register(registry);
+  }
+
+  private static Timer phase(final MeterRegistry registry, final String phase) {
+    return Timer.builder("ticket-service.db.transaction.phases")
+      .description("Time spent to begin, commit or roll back a database transaction")
+      .tag("phase", phase)
+      .publishPercentileHistogram()
+      .register(registry);
+  }
+
+  private void gauge(
+    final MeterRegistry registry,
+    final ConnectionPool pool,
+    final String name,
+    final ToIntFunction<PoolMetrics> metricFn
+  ) {
+    Gauge.builder(
+        "ticket-service.db.pool.".concat(name),
+        pool,
+        p -> p.getMetrics().map(metricFn::applyAsInt).orElse(0)
+      )
+      .description("Connections of the database pool that are ".concat(name))
+      .register(registry);
+  }
+
+  @Override
+  public <T> Multi<T> connection(final Function<Connection, Publisher<T>> work) {
+    return Multi.createFrom()
+      .resourceFromUni(this::acquired, work)
+      .withFinalizer(this::released);
+  }
+
+  private Uni<Connection> acquired() {
+    var sample = Timer.start();
+    return Uni.createFrom().<Connection>publisher(this.connectionFactory.create())
+      .onItem().invoke(() -> sample.stop(this.acquireTimer));
+  }
+
+  private Uni<Void> released(final Connection connection) {
+    return Uni.createFrom().publisher(connection.close());
+  }
+
+  @Override
+  public <T> Uni<T> transaction(final Function<Connection, Uni<T>> work) {
+    return this.connection(connection -> this.timed(this.begin, connection::beginTransaction)
+        .onItem().transformToUni(begun -> work.apply(connection))
+        .onItem().call(() -> this.timed(this.commit, connection::commitTransaction))
+        .onItem().invoke(item -> this.commits.increment())
+        .onFailure().invoke(failure -> this.rollbacks.increment())
+        .onFailure().call(() -> this.rolledBack(connection))
+        .onCancellation().invoke(() -> this.cancellations.increment())
+        .onCancellation().call(() -> this.rolledBack(connection))
+        .toMulti()
+      )
+      .toUni();
+  }
+
+  private Uni<Void> rolledBack(final Connection connection) {
+    return this.timed(this.rollback, connection::rollbackTransaction)
+      .onFailure().recoverWithNull();
+  }
+
+  private Uni<Void> timed(final Timer timer, final Supplier<Publisher<Void>> statement) {
+    return Uni.createFrom().deferred(() -> {
+      var sample = Timer.start();
+      return Uni.createFrom().publisher(statement.get())
+        .onTermination().invoke(() -> sample.stop(timer));
+    });
+  }
+}
@@ -0,0 +1,40 @@
+package io.github.raffaeleflorio.ticketservice.database.events;
+
+import io.micrometer.core.instrument.Counter;
+import io.r2dbc.spi.Connection;
+import io.smallrye.mutiny.Uni;
+
+import java.util.UUID;
+
+/**
+ * {@link SoldTickets} that count the refused increments, that is the bookings aborted before writing a ticket
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class CountedSoldTickets implements SoldTickets {
+
+  private final SoldTickets origin;
+  private final Counter aborts;
+
+  /**
+   * Builds the counter
+   *
+   * @param origin The decorated counter
+   * @param aborts The counter of refused increments
+   */
+  CountedSoldTickets(final SoldTickets origin, final Counter aborts) {
+    this.origin = origin;
+    this.aborts = aborts;
+  }
+
+  @Override
+  public Uni<Integer> incremented(final Connection connection, final UUID participant, final Integer tickets) {
+    return this.origin.incremented(connection, participant, tickets)
+      .onFailure().invoke(failure -> this.aborts.increment());
+  }
+
+  @Override
+  public Uni<Void> decremented(final Connection connection, final Integer shard) {
+    return this.origin.decremented(connection, shard);
+  }
+}
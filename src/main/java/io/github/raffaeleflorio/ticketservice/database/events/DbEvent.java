@@ -1,139 +1,277 @@
 package io.github.raffaeleflorio.ticketservice.database.events;
 
+import io.github.raffaeleflorio.ticketservice.BookingException;
 import io.github.raffaeleflorio.ticketservice.Event;
+import io.github.raffaeleflorio.ticketservice.database.DbConnections;
 import io.r2dbc.spi.Connection;
-import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.R2dbcDataIntegrityViolationException;
 import io.r2dbc.spi.Result;
 import io.r2dbc.spi.Statement;
 import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
-import org.reactivestreams.Publisher;
 
-import javax.json.Json;
 import javax.json.JsonObject;
 import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
- * An {@link Event} backed by a relational database
+ * An {@link Event} backed by a relational database.
+ * A refused booking fails with a {@link BookingException}: a duplicate if it violates the uniqueness of a participant's
+ * ticket or hold, an infrastructure failure if the database failed otherwise.
  *
  * @author Raffaele Florio (raffaeleflorio@protonmail.com)
  */
 final class DbEvent implements Event {
 
   private final UUID id;
-  private final ConnectionFactory connectionFactory;
+  private final DbConnections connections;
+  private final SoldTickets soldTickets;
+  private final HoldExpirations holdExpirations;
   private final Supplier<UUID> newTicketIdSupplier;
   private final Supplier<OffsetDateTime> nowSupplier;
+  private final EventProjection projection;
+  private final Timings phases;
 
   /**
    * Builds an event
    *
-   * @param id                The event's id
-   * @param connectionFactory The connection factory
-   * @param nowSupplier       The supplier of now as an {@link OffsetDateTime}
+   * @param id              The event's id
+   * @param connections     The database connections
+   * @param soldTickets     The sold tickets counter
+   * @param holdExpirations The expirations of held tickets
+   * @param nowSupplier     The supplier of now as an {@link OffsetDateTime}
+   * @param phases          The timings of the booking phases: update and insert
    */
-  DbEvent(final UUID id, final ConnectionFactory connectionFactory, final Supplier<OffsetDateTime> nowSupplier) {
+  DbEvent(
+    final UUID id,
+    final DbConnections connections,
+    final SoldTickets soldTickets,
+    final HoldExpirations holdExpirations,
+    final Supplier<OffsetDateTime> nowSupplier,
+    final Timings phases
+  ) {
     this(
       id,
-      connectionFactory,
+      connections,
+      soldTickets,
+      holdExpirations,
       UUID::randomUUID,
-      nowSupplier
+      nowSupplier,
+      new EventProjection(),
+      phases
     );
   }
 
   DbEvent(
     final UUID id,
-    final ConnectionFactory connectionFactory,
+    final DbConnections connections,
+    final SoldTickets soldTickets,
+    final HoldExpirations holdExpirations,
     final Supplier<UUID> newTicketIdSupplier,
-    final Supplier<OffsetDateTime> nowSupplier
+    final Supplier<OffsetDateTime> nowSupplier,
+    final EventProjection projection,
+    final Timings phases
   ) {
     this.id = id;
-    this.connectionFactory = connectionFactory;
+    this.connections = connections;
+    this.soldTickets = soldTickets;
+    this.holdExpirations = holdExpirations;
     this.newTicketIdSupplier = newTicketIdSupplier;
     this.nowSupplier = nowSupplier;
+    this.projection = projection;
+    this.phases = phases;
   }
 
   @Override
   public Uni<JsonObject> asJsonObject() {
-    return this.statement(
-        "SELECT ID, TITLE, DESCRIPTION, POSTER, EVENT_TIMESTAMP, (MAX_TICKETS - SOLD_TICKETS) AS AVAILABLE_TICKETS",
-        "FROM EVENTS",
-        "WHERE ID = $1"
+    return this.connections.connection(connection ->
+        Multi.createFrom().publisher(
+            this.statement(
+                connection,
+                "SELECT",
+                this.projection.columns(),
+                "FROM EVENTS",
+                "WHERE ID = $1"
+              )
+              .bind("$1", this.id)
+              .execute()
+          )
+          .onItem().transformToMultiAndConcatenate(result -> result.map(this.projection))
       )
-      .onItem().transformToMulti(statement -> statement.bind("$1", this.id).execute())
-      .onItem().transformToMultiAndMerge(this::asJsonObject)
       .onCompletion().ifEmpty().failWith(new RuntimeException("Unable to find the event"))
       .toUni();
   }
 
-  private Uni<Statement> statement(final String... pieces) {
-    return this.connection()
-      .onItem().transform(connection -> this.statement(connection, pieces));
+  private Statement statement(final Connection connection, final String... pieces) {
+    return connection.createStatement(String.join(" ", pieces));
   }
 
-  private Uni<Connection> connection() {
-    return Uni.createFrom().publisher(this.connectionFactory.create());
+  @Override
+  public Uni<UUID> ticket(final UUID participant) {
+    var ticketId = this.newTicketIdSupplier.get();
+    return this.connections
+      .transaction(connection -> this.ticket(connection, ticketId, participant))
+      .onFailure(this::untyped).transform(this::typed)
+      .onItem().transform(ignored -> ticketId);
   }
 
-  private Statement statement(final Connection connection, final String... pieces) {
-    return connection.createStatement(String.join(" ", pieces));
+  private Uni<Void> ticket(final Connection connection, final UUID ticketId, final UUID participant) {
+    return this.phases.timed("update", () -> this.soldTickets.incremented(connection, participant, 1))
+      .onItem().transformToUni(shard -> this.phases.timed("insert", () -> this.rowsUpdated(
+        new TicketsInsert(this.id, Map.of(participant, ticketId)).statement(connection, this.nowSupplier.get())
+      )))
+      .onItem().transformToUni(rowsUpdated -> this.expected(rowsUpdated, "Unable to book a ticket"));
   }
 
-  private Publisher<JsonObject> asJsonObject(final Result result) {
-    return result.map((row, rowMetadata) -> Json.createObjectBuilder()
-      .add("id", row.get("ID", UUID.class).toString())
-      .add("title", row.get("TITLE", String.class))
-      .add("description", row.get("DESCRIPTION", String.class))
-      .add("poster", row.get("POSTER", String.class))
-      .add("date", row.get("EVENT_TIMESTAMP", OffsetDateTime.class).toString())
-      .add("availableTickets", row.get("AVAILABLE_TICKETS", Integer.class))
-      .build());
+  @Override
+  public Uni<List<UUID>> tickets(final List<UUID> participants) {
+    if (participants.isEmpty()) {
+      throw new IllegalArgumentException("Unable to book tickets for no participants");
+    }
+    var participantsTickets = participants.stream().collect(Collectors.toMap(
+      Function.identity(),
+      participant -> this.newTicketIdSupplier.get(),
+      (first, second) -> {
+        throw new IllegalArgumentException("Unable to book two tickets for the same participant");
+      },
+      LinkedHashMap::new
+    ));
+    var insert = new TicketsInsert(this.id, participantsTickets);
+    return this.connections
+      .transaction(connection -> this.soldTickets.incremented(connection, participants.get(0), participants.size())
+        .onItem().transformToUni(shard -> this.rowsUpdated(insert.statement(connection, this.nowSupplier.get())))
+        .onItem().transformToUni(rowsUpdated -> rowsUpdated.equals(insert.size())
+          ? Uni.createFrom().voidItem()
+          : Uni.createFrom().<Void>failure(new RuntimeException("Unable to book the tickets"))
+        )
+      )
+      .onFailure(this::untyped).transform(this::typed)
+      .onItem().transform(ignored -> List.copyOf(participantsTickets.values()));
   }
 
   @Override
-  public Uni<UUID> ticket(final UUID participant) {
+  public Uni<UUID> hold(final UUID participant) {
+    var holdId = this.newTicketIdSupplier.get();
+    var now = this.nowSupplier.get();
+    var expiration = this.holdExpirations.expiration(now);
+    return this.connections
+      .transaction(connection -> this.soldTickets.incremented(connection, participant, 1)
+        .onItem().transformToUni(shard -> this.rowsUpdated(
+          this.statement(
+              connection,
+              "INSERT INTO HOLDS",
+              "(ID, EVENT_ID, PARTICIPANT_ID, SHARD, EXPIRATION_TIMESTAMP, CREATION_TIMESTAMP)",
+              "VALUES ($1, $2, $3, $4, $5, $6)"
+            )
+            .bind("$1", holdId)
+            .bind("$2", this.id)
+            .bind("$3", participant)
+            .bind("$4", shard)
+            .bind("$5", expiration)
+            .bind("$6", now)
+        ))
+        .onItem().transformToUni(rowsUpdated -> this.expected(rowsUpdated, "Unable to hold a ticket"))
+      )
+      .onFailure(this::untyped).transform(this::typed)
+      .onItem().invoke(() -> this.holdExpirations.schedule(this.id, holdId, expiration))
+      .onItem().transform(ignored -> holdId);
+  }
+
+  private Boolean untyped(final Throwable failure) {
+    return !(failure instanceof BookingException);
+  }
+
+  private Throwable typed(final Throwable failure) {
+    for (var cause = failure; cause != null; cause = cause.getCause()) {
+      if (cause instanceof R2dbcDataIntegrityViolationException) {
+        return new BookingException(BookingException.Reason.DUPLICATE, "Unable to book twice", failure);
+      }
+    }
+    return new BookingException(BookingException.Reason.INFRASTRUCTURE, "Unable to complete the booking", failure);
+  }
+
+  private Uni<Integer> rowsUpdated(final Statement statement) {
+    return Multi.createFrom().publisher(statement.execute())
+      .onItem().transformToMultiAndConcatenate(Result::getRowsUpdated)
+      .collect().with(Collectors.summingInt(Integer::intValue));
+  }
+
+  private Uni<Void> expected(final Integer rowsUpdated, final String failure) {
+    if (rowsUpdated > 0) {
+      return Uni.createFrom().voidItem();
+    }
+    return Uni.createFrom().failure(new RuntimeException(failure));
+  }
+
+  @Override
+  public Uni<UUID> confirm(final UUID hold) {
     var ticketId = this.newTicketIdSupplier.get();
-    return this.connection()
-      .onItem().call(connection -> Uni.createFrom().publisher(connection.setAutoCommit(false)))
-      .onItem().call(connection -> Uni.createFrom().publisher(connection.beginTransaction()))
-      .onItem().call(connection ->
-        this.ticket(connection, ticketId, participant)
-          .onItem().call(() -> Uni.createFrom().publisher(connection.commitTransaction()))
-          .onFailure().call(() -> Uni.createFrom().publisher(connection.rollbackTransaction()))
+    var now = this.nowSupplier.get();
+    return this.connections
+      .transaction(connection -> this.rowsUpdated(
+          this.statement(
+              connection,
+              "INSERT INTO TICKETS",
+              "(ID, EVENT_ID, PARTICIPANT_ID, CREATION_TIMESTAMP)",
+              "SELECT $1, EVENT_ID, PARTICIPANT_ID, $2 FROM HOLDS",
+              "WHERE ID = $3 AND EVENT_ID = $4 AND EXPIRATION_TIMESTAMP >= $5"
+            )
+            .bind("$1", ticketId)
+            .bind("$2", now)
+            .bind("$3", hold)
+            .bind("$4", this.id)
+            .bind("$5", now)
+        )
+        .onItem().transformToUni(this::held)
+        .onItem().transformToUni(inserted -> this.deleted(connection, hold))
+        .onItem().transformToUni(this::held)
       )
-      .onItem().ignore().andSwitchTo(Uni.createFrom().item(ticketId));
+      .onFailure(this::untyped).transform(this::typed)
+      .onItem().transform(ignored -> ticketId);
   }
 
-  private Uni<Void> ticket(final Connection connection, final UUID ticketId, final UUID participant) {
-    var updateSoldTicketsStatement = this.statement(
-        connection,
-        "UPDATE EVENTS",
-        "SET SOLD_TICKETS = SOLD_TICKETS + 1",
-        "WHERE ID = $1 AND SOLD_TICKETS < MAX_TICKETS AND EVENT_TIMESTAMP >= NOW()"
+  private Uni<Void> held(final Integer rowsUpdated) {
+    if (rowsUpdated > 0) {
+      return Uni.createFrom().voidItem();
+    }
+    return Uni.createFrom().failure(
+      new BookingException(BookingException.Reason.EXPIRED, "Unable to confirm a missing or expired hold")
+    );
+  }
+
+  private Uni<Integer> deleted(final Connection connection, final UUID hold) {
+    return this.rowsUpdated(
+      this.statement(connection, "DELETE FROM HOLDS WHERE ID = $1 AND EVENT_ID = $2")
+        .bind("$1", hold)
+        .bind("$2", this.id)
+    );
+  }
+
+  @Override
+  public Uni<Void> release(final UUID hold) {
+    return this.connections.transaction(connection -> Multi.createFrom()
+      .publisher(
+        this.statement(connection, "SELECT SHARD FROM HOLDS WHERE ID = $1 AND EVENT_ID = $2 FOR UPDATE")
+          .bind("$1", hold)
+          .bind("$2", this.id)
+          .execute()
       )
-      .bind("$1", this.id);
-    var insertTicketStatement = this.statement(
-        connection,
-        "INSERT INTO TICKETS",
-        "(ID, EVENT_ID, PARTICIPANT_ID, CREATION_TIMESTAMP)",
-        "VALUES ($1, $2, $3, $4)"
+      .onItem().transformToMultiAndConcatenate(result ->
+        result.map((row, rowMetadata) -> row.get("SHARD", Integer.class))
       )
-      .bind("$1", ticketId)
-      .bind("$2", this.id)
-      .bind("$3", participant)
-      .bind("$4", this.nowSupplier.get());
-    return Multi.createBy().combining().streams(
-        Multi.createFrom().publisher(updateSoldTicketsStatement.execute())
-          .onItem().transformToMultiAndMerge(Result::getRowsUpdated),
-        Multi.createFrom().publisher(insertTicketStatement.execute())
-          .onItem().transformToMultiAndMerge(Result::getRowsUpdated)
+      .toUni()
+      .onItem().ifNull().failWith(() -> new NoSuchElementException("Unable to find the hold"))
+      .onItem().call(() -> this.deleted(connection, hold)
+        .onItem().transformToUni(rowsUpdated -> this.expected(rowsUpdated, "Unable to find the hold"))
       )
-      .asTuple()
-      .filter(rowsUpdated -> rowsUpdated.getItem1() > 0 && rowsUpdated.getItem2() > 0)
-      .onCompletion().ifEmpty().failWith(new RuntimeException("Unable to book a ticket"))
-      .onItem().ignore()
-      .toUni();
+      .onItem().transformToUni(shard -> this.soldTickets.decremented(connection, shard))
+    );
   }
 }
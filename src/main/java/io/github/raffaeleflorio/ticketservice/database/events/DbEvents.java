@@ -2,136 +2,358 @@ package io.github.raffaeleflorio.ticketservice.database.events;
 
 import io.github.raffaeleflorio.ticketservice.Event;
 import io.github.raffaeleflorio.ticketservice.Events;
+import io.github.raffaeleflorio.ticketservice.database.DbConnections;
 import io.r2dbc.spi.Connection;
-import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.R2dbcDataIntegrityViolationException;
 import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
 import io.r2dbc.spi.Statement;
 import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 
-import javax.enterprise.context.ApplicationScoped;
-import javax.inject.Inject;
 import javax.json.Json;
 import javax.json.JsonArrayBuilder;
 import javax.json.JsonObject;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-import java.util.function.Function;
+import java.util.function.BiFunction;
 import java.util.function.Supplier;
 
 /**
- * {@link Events} backed by a relational database
+ * {@link Events} backed by a relational database.
+ * An upsert is retried once if a concurrent one inserted the same event first.
  *
  * @author Raffaele Florio (raffaeleflorio@protonmail.com)
  */
-@ApplicationScoped
 final class DbEvents implements Events {
 
-  private final ConnectionFactory connectionFactory;
-  private final String eventsIdSelectQuery;
-  private final Function<UUID, Event> eventFn;
+  private final DbConnections connections;
+  private final EventsFilter filter;
+  private final Integer ticketShards;
+  private final BiFunction<UUID, Integer, Event> eventFn;
   private final Supplier<UUID> newEventIdSupplier;
   private final Supplier<OffsetDateTime> nowSupplier;
+  private final EventProjection projection;
+  private final Timings queries;
 
   /**
    * Builds events
    *
-   * @param connectionFactory The connection factory
-   * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+   * @param connections  The database connections
+   * @param ticketShards The number of sold tickets shards of added events: one to keep them in the event's row
+   * @param eventFn      The function that builds an event given its id and its number of sold tickets shards
+   * @param queries      The timings of the queries: upsert, batch-upsert, lookup and list
    */
-  @Inject
-  DbEvents(final ConnectionFactory connectionFactory) {
+  DbEvents(
+    final DbConnections connections,
+    final Integer ticketShards,
+    final BiFunction<UUID, Integer, Event> eventFn,
+    final Timings queries
+  ) {
     this(
-      connectionFactory,
-      "SELECT ID FROM EVENTS",
-      id -> new DbEvent(id, connectionFactory, () -> OffsetDateTime.now(ZoneOffset.UTC)),
+      connections,
+      new EventsFilter(),
+      ticketShards,
+      eventFn,
       UUID::randomUUID,
-      () -> OffsetDateTime.now(ZoneOffset.UTC)
+      () -> OffsetDateTime.now(ZoneOffset.UTC),
+      new EventProjection(),
+      queries
     );
   }
 
   DbEvents(
-    final ConnectionFactory connectionFactory,
-    final String eventsIdSelectQuery,
-    final Function<UUID, Event> eventFn,
+    final DbConnections connections,
+    final EventsFilter filter,
+    final Integer ticketShards,
+    final BiFunction<UUID, Integer, Event> eventFn,
     final Supplier<UUID> newEventIdSupplier,
-    final Supplier<OffsetDateTime> nowSupplier
+    final Supplier<OffsetDateTime> nowSupplier,
+    final EventProjection projection,
+    final Timings queries
   ) {
-    this.connectionFactory = connectionFactory;
-    this.eventsIdSelectQuery = eventsIdSelectQuery;
+    this.connections = connections;
+    this.filter = filter;
+    this.ticketShards = ticketShards;
     this.eventFn = eventFn;
     this.newEventIdSupplier = newEventIdSupplier;
     this.nowSupplier = nowSupplier;
+    this.projection = projection;
+    this.queries = queries;
   }
 
   @Override
   public Uni<Event> event(final JsonObject event) {
-    var id = this.newEventIdSupplier.get();
-    return this.statement(
-        "INSERT INTO EVENTS",
-        "(ID, EXTERNAL_ID, ORIGIN, TITLE, DESCRIPTION, POSTER, EVENT_TIMESTAMP, MAX_TICKETS, CREATION_TIMESTAMP)",
-        "VALUES ($1, $2, $3, $4, $5, $6, $7, $8, $9)"
+    return this.queries
+      .timed("upsert", () -> this.connections.transaction(connection -> this.upserted(connection, event)))
+      .onFailure(this::conflicting).retry().atMost(1);
+  }
+
+  @Override
+  public Uni<List<Event>> events(final List<JsonObject> events) {
+    return this.queries.timed("batch-upsert", () -> this.connections.transaction(connection -> Multi.createFrom()
+          .iterable(events)
+          .onItem().transformToUniAndConcatenate(event -> this.upserted(connection, event))
+          .collect().asList()
+        ))
+      .onFailure(this::conflicting).retry().atMost(1);
+  }
+
+  private Boolean conflicting(final Throwable failure) {
+    for (var cause = failure; cause != null; cause = cause.getCause()) {
+      if (cause instanceof R2dbcDataIntegrityViolationException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private Uni<Event> upserted(final Connection connection, final JsonObject event) {
+    return this.existing(connection, event)
+      .onItem().transformToUni(existing -> existing.isEmpty()
+        ? this.inserted(connection, event)
+        : this.updated(connection, event, existing.get(0).getKey(), existing.get(0).getValue())
+      );
+  }
+
+  private Uni<List<Map.Entry<UUID, Integer>>> existing(final Connection connection, final JsonObject event) {
+    return this.rows(
+        this.statement(
+            connection,
+            "SELECT ID, TICKET_SHARDS FROM EVENTS WHERE EXTERNAL_ID = $1 AND ORIGIN = $2 FOR UPDATE"
+          )
+          .bind("$1", event.getString("externalId"))
+          .bind("$2", event.getString("origin")),
+        (row, rowMetadata) -> Map.entry(row.get("ID", UUID.class), row.get("TICKET_SHARDS", Integer.class))
       )
-      .onItem().transformToMulti(statement -> statement
-        .bind("$1", id)
-        .bind("$2", event.getString("externalId"))
-        .bind("$3", event.getString("origin"))
-        .bind("$4", event.getString("title"))
-        .bind("$5", event.getString("description"))
-        .bind("$6", event.getString("poster"))
-        .bind("$7", OffsetDateTime.parse(event.getString("date")))
-        .bind("$8", event.getInt("maxTickets"))
-        .bind("$9", this.nowSupplier.get())
-        .execute()
+      .collect().asList();
+  }
+
+  private Uni<Event> inserted(final Connection connection, final JsonObject event) {
+    var id = this.newEventIdSupplier.get();
+    return this.rowsUpdated(
+        this.statement(
+            connection,
+            "INSERT INTO EVENTS",
+            "(ID, EXTERNAL_ID, ORIGIN, TITLE, DESCRIPTION, POSTER, EVENT_TIMESTAMP, MAX_TICKETS, CREATION_TIMESTAMP,",
+            "TICKET_SHARDS)",
+            "VALUES ($1, $2, $3, $4, $5, $6, $7, $8, $9, $10)"
+          )
+          .bind("$1", id)
+          .bind("$2", event.getString("externalId"))
+          .bind("$3", event.getString("origin"))
+          .bind("$4", event.getString("title"))
+          .bind("$5", event.getString("description"))
+          .bind("$6", event.getString("poster"))
+          .bind("$7", OffsetDateTime.parse(event.getString("date")))
+          .bind("$8", event.getInt("maxTickets"))
+          .bind("$9", this.nowSupplier.get())
+          .bind("$10", this.ticketShards)
       )
-      .onItem().transformToMultiAndMerge(Result::getRowsUpdated)
       .filter(rowsUpdated -> rowsUpdated > 0)
-      .onItem().transform(rowsUpdated -> id)
-      .onItem().transform(this.eventFn)
       .onCompletion().ifEmpty().failWith(new RuntimeException("Unable to add an event"))
-      .toUni();
+      .toUni()
+      .onItem().call(() -> this.ticketShards(connection, id, event.getInt("maxTickets")))
+      .onItem().transform(rowsUpdated -> this.eventFn.apply(id, this.ticketShards));
+  }
+
+  private Uni<Event> updated(
+    final Connection connection,
+    final JsonObject event,
+    final UUID id,
+    final Integer ticketShards
+  ) {
+    var maxTickets = event.getInt("maxTickets");
+    return this.rowsUpdated(
+        this.statement(
+            connection,
+            "UPDATE EVENTS SET TITLE = $1, DESCRIPTION = $2, POSTER = $3, EVENT_TIMESTAMP = $4,",
+            "MAX_TICKETS = GREATEST($5, SOLD_TICKETS + COALESCE(",
+            "(SELECT SUM(SOLD_TICKETS) FROM EVENT_TICKET_SHARDS WHERE EVENT_TICKET_SHARDS.EVENT_ID = EVENTS.ID), 0",
+            "))",
+            "WHERE ID = $6"
+          )
+          .bind("$1", event.getString("title"))
+          .bind("$2", event.getString("description"))
+          .bind("$3", event.getString("poster"))
+          .bind("$4", OffsetDateTime.parse(event.getString("date")))
+          .bind("$5", maxTickets)
+          .bind("$6", id)
+      )
+      .filter(rowsUpdated -> rowsUpdated > 0)
+      .onCompletion().ifEmpty().failWith(new RuntimeException("Unable to update an event"))
+      .toUni()
+      .onItem().call(() -> this.resizedTicketShards(connection, id, ticketShards, maxTickets))
+      .onItem().transform(rowsUpdated -> this.eventFn.apply(id, ticketShards));
   }
 
-  private Uni<Statement> statement(final String... pieces) {
-    return this.connection()
-      .onItem().transform(connection -> connection.createStatement(String.join(" ", pieces)));
+  private Uni<Void> resizedTicketShards(
+    final Connection connection,
+    final UUID id,
+    final Integer ticketShards,
+    final Integer maxTickets
+  ) {
+    if (ticketShards < 2) {
+      return Uni.createFrom().voidItem();
+    }
+    return this.rows(
+        this.statement(
+            connection,
+            "SELECT SOLD_TICKETS FROM EVENT_TICKET_SHARDS WHERE EVENT_ID = $1 ORDER BY SHARD FOR UPDATE"
+          )
+          .bind("$1", id),
+        (row, rowMetadata) -> row.get("SOLD_TICKETS", Integer.class)
+      )
+      .collect().asList()
+      .onItem().transformToUni(soldTickets -> this.shardsMaxTickets(
+        connection,
+        id,
+        new TicketShardsSplit(maxTickets).maxTickets(soldTickets)
+      ));
   }
 
-  private Uni<Connection> connection() {
-    return Uni.createFrom().publisher(this.connectionFactory.create());
+  private Uni<Void> shardsMaxTickets(final Connection connection, final UUID id, final List<Integer> maxTickets) {
+    var statement = this.statement(
+      connection,
+      "UPDATE EVENT_TICKET_SHARDS SET MAX_TICKETS = $1",
+      "WHERE EVENT_ID = $2 AND SHARD = $3"
+    );
+    for (var shard = 0; shard < maxTickets.size(); shard++) {
+      if (shard > 0) {
+        statement.add();
+      }
+      statement
+        .bind("$1", maxTickets.get(shard))
+        .bind("$2", id)
+        .bind("$3", shard);
+    }
+    return this.rowsUpdated(statement).collect().last().replaceWithVoid();
+  }
+
+  private Uni<Void> ticketShards(final Connection connection, final UUID id, final Integer maxTickets) {
+    if (this.ticketShards < 2) {
+      return Uni.createFrom().voidItem();
+    }
+    var shardsMaxTickets = new TicketShardsSplit(maxTickets).maxTickets(Collections.nCopies(this.ticketShards, 0));
+    var statement = this.statement(
+      connection,
+      "INSERT INTO EVENT_TICKET_SHARDS",
+      "(EVENT_ID, SHARD, MAX_TICKETS)",
+      "VALUES ($1, $2, $3)"
+    );
+    for (var shard = 0; shard < this.ticketShards; shard++) {
+      if (shard > 0) {
+        statement.add();
+      }
+      statement
+        .bind("$1", id)
+        .bind("$2", shard)
+        .bind("$3", shardsMaxTickets.get(shard));
+    }
+    return this.rowsUpdated(statement).collect().last().replaceWithVoid();
+  }
+
+  private Statement statement(final Connection connection, final String... pieces) {
+    return connection.createStatement(String.join(" ", pieces));
+  }
+
+  private Multi<Integer> rowsUpdated(final Statement statement) {
+    return Multi.createFrom().publisher(statement.execute())
+      .onItem().transformToMultiAndConcatenate(Result::getRowsUpdated);
   }
 
   @Override
   public Multi<Event> event(final UUID id) {
-    return this.statement(
-        this.eventsIdSelectQuery,
-        this.eventsIdSelectQuery.contains(" WHERE ") ? "AND ID = $1" : "WHERE ID = $1"
-      )
-      .onItem().transformToMulti(statement -> statement.bind("$1", id).execute())
-      .onItem().transformToMultiAndMerge(result -> result.map((row, rowMetadata) -> row.get("ID", UUID.class)))
-      .onItem().transform(this.eventFn);
+    return this.queries.timedMulti("lookup", () -> this.connections.connection(connection -> this.rows(
+      this.filter.bound(
+        this.statement(
+            connection,
+            "SELECT ID, TICKET_SHARDS FROM EVENTS WHERE ID = $1",
+            this.filter.conditions("AND", 2)
+          )
+          .bind("$1", id),
+        2
+      ),
+      (row, rowMetadata) -> this.eventFn.apply(row.get("ID", UUID.class), row.get("TICKET_SHARDS", Integer.class))
+    )));
+  }
+
+  private <T> Multi<T> rows(final Statement statement, final BiFunction<Row, RowMetadata, T> rowFn) {
+    return Multi.createFrom().publisher(statement.execute())
+      .onItem().transformToMultiAndConcatenate(result -> result.map(rowFn));
   }
 
   @Override
   public Events upcoming() {
+    return this.filtered(this.filter.with("EVENT_TIMESTAMP >= NOW()"));
+  }
+
+  private Events filtered(final EventsFilter filter) {
     return new DbEvents(
-      this.connectionFactory,
-      "SELECT ID FROM EVENTS WHERE EVENT_TIMESTAMP >= NOW()",
+      this.connections,
+      filter,
+      this.ticketShards,
       this.eventFn,
       this.newEventIdSupplier,
-      this.nowSupplier
+      this.nowSupplier,
+      this.projection,
+      this.queries
     );
   }
 
+  @Override
+  public Events after(final OffsetDateTime date, final UUID id) {
+    return this.filtered(this.filter.with("(EVENT_TIMESTAMP, ID) > (?, ?)", date, id));
+  }
+
+  @Override
+  public Events since(final OffsetDateTime date) {
+    return this.filtered(this.filter.with("EVENT_TIMESTAMP >= ?", date));
+  }
+
+  @Override
+  public Events until(final OffsetDateTime date) {
+    return this.filtered(this.filter.with("EVENT_TIMESTAMP < ?", date));
+  }
+
+  @Override
+  public Events available() {
+    return this.filtered(this.filter.with(this.projection.availableTickets().concat(" > 0")));
+  }
+
+  @Override
+  public Events first(final Integer size) {
+    return this.filtered(this.filter.limited(size));
+  }
+
   @Override
   public Uni<JsonObject> asJsonObject() {
-    return this.statement(this.eventsIdSelectQuery)
-      .onItem().transformToMulti(Statement::execute)
-      .onItem().transformToMultiAndMerge(result -> result.map((row, rowMetadata) -> row.get("ID", UUID.class)))
-      .onItem().transform(this.eventFn)
-      .onItem().transformToUniAndMerge(Event::asJsonObject)
+    return this.asJsonStream()
       .collect().in(Json::createArrayBuilder, JsonArrayBuilder::add)
       .onItem().transform(events -> Json.createObjectBuilder().add("events", events).build());
   }
+
+  @Override
+  public Multi<JsonObject> asJsonStream() {
+    return this.queries.timedMulti("list", () -> this.connections.connection(connection -> this.rows(
+      this.filter.bound(
+        this.statement(
+          connection,
+          "SELECT",
+          this.projection.columns(),
+          "FROM EVENTS",
+          this.filter.conditions("WHERE", 1),
+          "ORDER BY EVENT_TIMESTAMP, ID",
+          this.filter.limit()
+        ),
+        1
+      ),
+      this.projection
+    )));
+  }
 }
@@ -0,0 +1,142 @@
+package io.github.raffaeleflorio.ticketservice.database.events;
+
+import io.github.raffaeleflorio.ticketservice.Event;
+import io.github.raffaeleflorio.ticketservice.Events;
+import io.github.raffaeleflorio.ticketservice.admission.Admission;
+import io.github.raffaeleflorio.ticketservice.admission.AdmittedEvents;
+import io.github.raffaeleflorio.ticketservice.database.DbConnections;
+import io.github.raffaeleflorio.ticketservice.inventory.InventoryEvents;
+import io.github.raffaeleflorio.ticketservice.live.LiveAvailability;
+import io.github.raffaeleflorio.ticketservice.live.LiveEvents;
+import io.github.raffaeleflorio.ticketservice.snapshot.SnapshotEvents;
+import io.github.raffaeleflorio.ticketservice.versions.VersionedEvents;
+import io.github.raffaeleflorio.ticketservice.versions.Versions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Produces;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+@ApplicationScoped
+class DbEventsFactories {
+
+  private final DbConnections connections;
+  private final Integer ticketShards;
+  private final GroupCommitConfig groupCommitConfig;
+  private final GroupCommits groupCommits;
+  private final HoldExpirations holdExpirations;
+  private final Counter aborts;
+  private final Duration snapshotMaxStaleness;
+  private final MeterRegistry registry;
+  private final Versions versions;
+  private final LiveAvailability liveAvailability;
+  private final Timings phases;
+  private final Timings queries;
+  private final Duration bookingsWindow;
+  private final Integer bookingsMaxSize;
+  private final Admission admission;
+
+  DbEventsFactories(
+    final DbConnections connections,
+    @ConfigProperty(name = "ticket-service.db.events.ticket-shards", defaultValue = "1") final Integer ticketShards,
+    final GroupCommitConfig groupCommitConfig,
+    final MeterRegistry registry,
+    final HoldExpirations holdExpirations,
+    @ConfigProperty(
+      name = "ticket-service.events.snapshot.max-staleness",
+      defaultValue = "30S"
+    ) final Duration snapshotMaxStaleness,
+    final Versions versions,
+    final LiveAvailability liveAvailability,
+    @ConfigProperty(
+      name = "ticket-service.booking.duplicates.window",
+      defaultValue = "10M"
+    ) final Duration bookingsWindow,
+    @ConfigProperty(
+      name = "ticket-service.booking.duplicates.max-size",
+      defaultValue = "100000"
+    ) final Integer bookingsMaxSize,
+    final Admission admission
+  ) {
+    this.connections = connections;
+    this.holdExpirations = holdExpirations;
+    this.ticketShards = ticketShards;
+    this.groupCommitConfig = groupCommitConfig;
+    this.groupCommits = new GroupCommits(connections, groupCommitConfig, registry);
+    this.aborts = Counter.builder("ticket-service.booking.aborts")
+      .description("Bookings refused by the sold tickets counter before writing a ticket")
+      .register(registry);
+    this.snapshotMaxStaleness = snapshotMaxStaleness;
+    this.registry = registry;
+    this.versions = versions;
+    this.liveAvailability = liveAvailability;
+    this.bookingsWindow = bookingsWindow;
+    this.bookingsMaxSize = bookingsMaxSize;
+    this.admission = admission;
+    this.phases = new Timings(
+      registry,
+      "ticket-service.booking.phases",
+      "Time spent by a booking in each statement of its transaction",
+      "phase",
+      List.of("update", "insert")
+    );
+    this.queries = new Timings(
+      registry,
+      "ticket-service.db.events.queries",
+      "Time spent by the queries of the events",
+      "query",
+      List.of("upsert", "batch-upsert", "lookup", "list")
+    );
+  }
+
+  @Produces
+  @ApplicationScoped
+  Events events() {
+    return new LiveEvents(
+      new VersionedEvents(
+        new SnapshotEvents(
+          new InventoryEvents(
+            new AdmittedEvents(
+              new DbEvents(this.connections, this.ticketShards, this::event, this.queries),
+              this.admission
+            ),
+            this.bookingsWindow,
+            this.bookingsMaxSize
+          ),
+          this.snapshotMaxStaleness,
+          this.registry
+        ),
+        this.versions
+      ),
+      this.liveAvailability
+    );
+  }
+
+  private Event event(final UUID id, final Integer ticketShards) {
+    if (ticketShards > 1) {
+      return this.dbEvent(id, new ShardedSoldTickets(id, ticketShards));
+    }
+    var event = this.dbEvent(id, new EventSoldTickets(id));
+    if (this.groupCommitConfig.enabled()) {
+      return new GroupCommitEvent(id, event, this.groupCommits);
+    }
+    return event;
+  }
+
+  private Event dbEvent(final UUID id, final SoldTickets soldTickets) {
+    return new DbEvent(
+      id,
+      this.connections,
+      new CountedSoldTickets(soldTickets, this.aborts),
+      this.holdExpirations,
+      () -> OffsetDateTime.now(ZoneOffset.UTC),
+      this.phases
+    );
+  }
+}
@@ -0,0 +1,58 @@
+package io.github.raffaeleflorio.ticketservice.database.events;
+
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import java.util.function.BiFunction;
+
+/**
+ * The projection of an EVENTS row as the {@link JsonObject} representation of an event
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class EventProjection implements BiFunction<Row, RowMetadata, JsonObject> {
+
+  /**
+   * Emits the columns that a query must select to be mapped
+   *
+   * @return The columns as an SQL select list
+   */
+  String columns() {
+    return String.join(
+      " ",
+      "ID, TITLE, DESCRIPTION, POSTER, EVENT_TIMESTAMP,",
+      "CAST(", this.availableTickets(), "AS INTEGER) AS AVAILABLE_TICKETS"
+    );
+  }
+
+  /**
+   * Emits the SQL expression of the available tickets of an EVENTS row.
+   * The sum of the shards makes it a BIGINT, so it's cast back to INTEGER when selected.
+   *
+   * @return The expression
+   */
+  String availableTickets() {
+    return String.join(
+      " ",
+      "(MAX_TICKETS - SOLD_TICKETS - COALESCE(",
+      "(SELECT SUM(SOLD_TICKETS) FROM EVENT_TICKET_SHARDS WHERE EVENT_TICKET_SHARDS.EVENT_ID = EVENTS.ID), 0",
+      "))"
+    );
+  }
+
+  @Override
+  public JsonObject apply(final Row row, final RowMetadata rowMetadata) {
+    return Json.createObjectBuilder()
+      .add("id", row.get("ID", UUID.class).toString())
+      .add("title", row.get("TITLE", String.class))
+      .add("description", row.get("DESCRIPTION", String.class))
+      .add("poster", row.get("POSTER", String.class))
+      .add("date", row.get("EVENT_TIMESTAMP", OffsetDateTime.class).toString())
+      .add("availableTickets", row.get("AVAILABLE_TICKETS", Integer.class))
+      .build();
+  }
+}
@@ -0,0 +1,70 @@
+package io.github.raffaeleflorio.ticketservice.database.events;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * {@link SoldTickets} stored in the SOLD_TICKETS column of the EVENTS row.
+ * It has a single shard: zero.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class EventSoldTickets implements SoldTickets {
+
+  private final UUID id;
+  private final SoldTicketsRefusal refusal;
+
+  /**
+   * Builds the counter
+   *
+   * @param id The event's id
+   */
+  EventSoldTickets(final UUID id) {
+    this(id, new SoldTicketsRefusal(id));
+  }
+
+  EventSoldTickets(final UUID id, final SoldTicketsRefusal refusal) {
+    this.id = id;
+    this.refusal = refusal;
+  }
+
+  @Override
+  public Uni<Integer> incremented(final Connection connection, final UUID participant, final Integer tickets) {
+    return this.rowsUpdated(
+        connection.createStatement(String.join(
+            " ",
+            "UPDATE EVENTS",
+            "SET SOLD_TICKETS = SOLD_TICKETS + $1",
+            "WHERE ID = $2 AND SOLD_TICKETS + $3 <= MAX_TICKETS AND EVENT_TIMESTAMP >= NOW()"
+          ))
+          .bind("$1", tickets)
+          .bind("$2", this.id)
+          .bind("$3", tickets)
+      )
+      .onItem().transformToUni(rowsUpdated -> rowsUpdated > 0
+        ? Uni.createFrom().item(0)
+        : this.refusal.<Integer>failed(connection)
+      );
+  }
+
+  @Override
+  public Uni<Void> decremented(final Connection connection, final Integer shard) {
+    return this.rowsUpdated(
+        connection.createStatement("UPDATE EVENTS SET SOLD_TICKETS = SOLD_TICKETS - 1 WHERE ID = $1")
+          .bind("$1", this.id)
+      )
+      .replaceWithVoid();
+  }
+
+  private Uni<Integer> rowsUpdated(final Statement statement) {
+    return Multi.createFrom().publisher(statement.execute())
+      .onItem().transformToMultiAndConcatenate(Result::getRowsUpdated)
+      .collect().with(Collectors.summingInt(Integer::intValue));
+  }
+}
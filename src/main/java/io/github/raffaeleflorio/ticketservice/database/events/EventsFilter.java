@@ -0,0 +1,107 @@
+package io.github.raffaeleflorio.ticketservice.database.events;
+
+import io.r2dbc.spi.Statement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The conditions and the limit that restrict the EVENTS rows of a query.
+ * Conditions use ? as placeholder of their values.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class EventsFilter {
+
+  private final List<String> conditions;
+  private final List<Object> values;
+  private final Optional<Integer> limit;
+
+  /**
+   * Builds a filter that doesn't restrict anything
+   */
+  EventsFilter() {
+    this(List.of(), List.of(), Optional.empty());
+  }
+
+  EventsFilter(final List<String> conditions, final List<Object> values, final Optional<Integer> limit) {
+    this.conditions = conditions;
+    this.values = values;
+    this.limit = limit;
+  }
+
+  /**
+   * Builds a filter with a further condition
+   *
+   * @param condition The condition
+   * @param values    The values of the condition's placeholders
+   * @return The filter
+   */
+  EventsFilter with(final String condition, final Object... values) {
+    var conditions = new ArrayList<>(this.conditions);
+    conditions.add(condition);
+    var allValues = new ArrayList<>(this.values);
+    allValues.addAll(List.of(values));
+    return new EventsFilter(List.copyOf(conditions), List.copyOf(allValues), this.limit);
+  }
+
+  /**
+   * Builds a filter that restricts the rows to the given number
+   *
+   * @param limit The max number of rows
+   * @return The filter
+   */
+  EventsFilter limited(final Integer limit) {
+    return new EventsFilter(this.conditions, this.values, Optional.of(limit));
+  }
+
+  /**
+   * Emits the conditions as SQL
+   *
+   * @param prefix         The SQL that precedes its conditions (e.g. WHERE)
+   * @param firstParameter The index of the first $n parameter to use
+   * @return The conditions as SQL or empty
+   */
+  String conditions(final String prefix, final Integer firstParameter) {
+    if (this.conditions.isEmpty()) {
+      return "";
+    }
+    var sql = new StringBuilder(prefix);
+    var parameter = firstParameter;
+    for (var condition : this.conditions) {
+      sql.append(sql.length() == prefix.length() ? " " : " AND ");
+      for (var c : condition.toCharArray()) {
+        if (c == '?') {
+          sql.append('$').append(parameter++);
+        } else {
+          sql.append(c);
+        }
+      }
+    }
+    return sql.toString();
+  }
+
+  /**
+   * Binds the conditions' values
+   *
+   * @param statement      The statement built with {@link #conditions(String, Integer)}
+   * @param firstParameter The index of the first $n parameter used
+   * @return The statement
+   */
+  Statement bound(final Statement statement, final Integer firstParameter) {
+    for (var i = 0; i < this.values.size(); i++) {
+      statement.bind("$" + (firstParameter + i), this.values.get(i));
+    }
+    return statement;
+  }
+
+  /**
+   * Emits the limit as SQL
+   *
+   * @return The limit as SQL or empty
+   */
+  String limit() {
+    return this.limit.map(limit -> "LIMIT " + limit).orElse("");
+  }
+}
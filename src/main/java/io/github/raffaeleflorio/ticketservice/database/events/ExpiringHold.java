@@ -0,0 +1,88 @@
+package io.github.raffaeleflorio.ticketservice.database.events;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A held ticket waiting to expire
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class ExpiringHold implements Delayed {
+
+  private final UUID event;
+  private final UUID id;
+  private final Instant expiration;
+  private final Integer attempts;
+
+  /**
+   * Builds an expiring hold
+   *
+   * @param event      The event's id
+   * @param id         The hold's id
+   * @param expiration The expiration instant
+   */
+  ExpiringHold(final UUID event, final UUID id, final Instant expiration) {
+    this(event, id, expiration, 0);
+  }
+
+  ExpiringHold(final UUID event, final UUID id, final Instant expiration, final Integer attempts) {
+    this.event = event;
+    this.id = id;
+    this.expiration = expiration;
+    this.attempts = attempts;
+  }
+
+  /**
+   * Emits the event's id
+   *
+   * @return The event's id
+   */
+  UUID event() {
+    return this.event;
+  }
+
+  /**
+   * Emits the hold's id
+   *
+   * @return The hold's id
+   */
+  UUID id() {
+    return this.id;
+  }
+
+  /**
+   * Emits the same hold expiring again after an exponential backoff, because its release failed
+   *
+   * @param now            The instant of the failure
+   * @param initialBackoff The backoff after the first failure
+   * @param maxBackoff     The max backoff
+   * @return The retried hold
+   */
+  ExpiringHold retried(final Instant now, final Duration initialBackoff, final Duration maxBackoff) {
+    var backoff = initialBackoff.multipliedBy(1L << Math.min(this.attempts, 30));
+    return new ExpiringHold(
+      this.event,
+      this.id,
+      now.plus(backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff),
+      this.attempts + 1
+    );
+  }
+
+  @Override
+  public long getDelay(final TimeUnit unit) {
+    return unit.convert(Instant.now().until(this.expiration, ChronoUnit.MILLIS), TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public int compareTo(final Delayed other) {
+    if (other instanceof ExpiringHold) {
+      return this.expiration.compareTo(((ExpiringHold) other).expiration);
+    }
+    return Long.compare(this.getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+  }
+}
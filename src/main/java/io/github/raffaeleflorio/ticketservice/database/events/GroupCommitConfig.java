@@ -0,0 +1,39 @@
+package io.github.raffaeleflorio.ticketservice.database.events;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+/**
+ * The typed configuration of the group commit of bookings
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+@ConfigMapping(prefix = "ticket-service.booking.group-commit")
+interface GroupCommitConfig {
+
+  /**
+   * Emits whether concurrent bookings of the same event are committed together
+   *
+   * @return True if the group commit is enabled
+   */
+  @WithDefault("false")
+  Boolean enabled();
+
+  /**
+   * Emits how long the first booking of a group waits for the others
+   *
+   * @return The window
+   */
+  @WithDefault("5MS")
+  Duration window();
+
+  /**
+   * Emits the max number of bookings committed together
+   *
+   * @return The max size
+   */
+  @WithDefault("64")
+  Integer maxSize();
+}
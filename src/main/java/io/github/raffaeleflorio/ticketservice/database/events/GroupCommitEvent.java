@@ -0,0 +1,63 @@
+package io.github.raffaeleflorio.ticketservice.database.events;
+
+import io.github.raffaeleflorio.ticketservice.Event;
+import io.smallrye.mutiny.Uni;
+
+import javax.json.JsonObject;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * An {@link Event} whose bookings go through {@link GroupCommits}
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class GroupCommitEvent implements Event {
+
+  private final UUID id;
+  private final Event origin;
+  private final GroupCommits groupCommits;
+
+  /**
+   * Builds an event
+   *
+   * @param id           The event's id
+   * @param origin       The decorated event, used to book on its own
+   * @param groupCommits The group commits pipeline
+   */
+  GroupCommitEvent(final UUID id, final Event origin, final GroupCommits groupCommits) {
+    this.id = id;
+    this.origin = origin;
+    this.groupCommits = groupCommits;
+  }
+
+  @Override
+  public Uni<JsonObject> asJsonObject() {
+    return this.origin.asJsonObject();
+  }
+
+  @Override
+  public Uni<UUID> ticket(final UUID participant) {
+    return this.groupCommits.ticket(this.id, participant, () -> this.origin.ticket(participant));
+  }
+
+  @Override
+  public Uni<List<UUID>> tickets(final List<UUID> participants) {
+    return this.origin.tickets(participants);
+  }
+
+  @Override
+  public Uni<UUID> hold(final UUID participant) {
+    return this.origin.hold(participant);
+  }
+
+  @Override
+  public Uni<UUID> confirm(final UUID hold) {
+    return this.origin.confirm(hold);
+  }
+
+  @Override
+  public Uni<Void> release(final UUID hold) {
+    return this.origin.release(hold);
+  }
+}
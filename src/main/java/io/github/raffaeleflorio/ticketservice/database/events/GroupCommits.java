@@ -0,0 +1,326 @@
+package io.github.raffaeleflorio.ticketservice.database.events;
+
+import io.github.raffaeleflorio.ticketservice.BookingException;
+import io.github.raffaeleflorio.ticketservice.database.DbConnections;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Statement;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * A pipeline that commits the concurrent bookings of an event together.
+ * Bookings are grouped for a short window or up to a max size and then committed within a single transaction:
+ * one SOLD_TICKETS update and one multi-row TICKETS insert.
+ * Each booking is completed on its own: participants with a ticket are refused as duplicates, the ones exceeding the
+ * available tickets as sold out or gone, if the event isn't upcoming anymore.
+ * If the group fails as a whole, its bookings are retried on their own.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class GroupCommits {
+
+  private final DbConnections connections;
+  private final GroupCommitConfig config;
+  private final ConcurrentMap<UUID, PendingTickets> pending;
+  private final Supplier<UUID> newTicketIdSupplier;
+  private final Supplier<OffsetDateTime> nowSupplier;
+  private final Counter commits;
+  private final Counter fallbacks;
+  private final DistributionSummary groupSizes;
+
+  /**
+   * Builds the pipeline
+   *
+   * @param connections The database connections
+   * @param config      The group commit configuration
+   * @param registry    The registry where metrics are recorded
+   */
+  GroupCommits(final DbConnections connections, final GroupCommitConfig config, final MeterRegistry registry) {
+    this(
+      connections,
+      config,
+      new ConcurrentHashMap<>(),
+      UUID::randomUUID,
+      () -> OffsetDateTime.now(ZoneOffset.UTC),
+      Counter.builder("ticket-service.booking.group-commit.commits")
+        .description("Committed groups of bookings")
+        .register(registry),
+      Counter.builder("ticket-service.booking.group-commit.fallbacks")
+        .description("Failed groups of bookings retried on their own")
+        .register(registry),
+      DistributionSummary.builder("ticket-service.booking.group-commit.size")
+        .description("Bookings committed together")
+        .publishPercentileHistogram()
+        .register(registry)
+    );
+  }
+
+  GroupCommits(
+    final DbConnections connections,
+    final GroupCommitConfig config,
+    final ConcurrentMap<UUID, PendingTickets> pending,
+    final Supplier<UUID> newTicketIdSupplier,
+    final Supplier<OffsetDateTime> nowSupplier,
+    final Counter commits,
+    final Counter fallbacks,
+    final DistributionSummary groupSizes
+  ) {
+    this.connections = connections;
+    this.config = config;
+    this.pending = pending;
+    this.newTicketIdSupplier = newTicketIdSupplier;
+    this.nowSupplier = nowSupplier;
+    this.commits = commits;
+    this.fallbacks = fallbacks;
+    this.groupSizes = groupSizes;
+  }
+
+  /**
+   * Books a ticket together with the concurrent bookings of the same event
+   *
+   * @param id          The event's id
+   * @param participant The participant id
+   * @param fallback    The booking done on its own
+   * @return The ticket's id
+   */
+  Uni<UUID> ticket(final UUID id, final UUID participant, final Supplier<Uni<UUID>> fallback) {
+    return Uni.createFrom().emitter(emitter -> this.enqueue(id, new PendingTicket(participant, emitter, fallback)));
+  }
+
+  private void enqueue(final UUID id, final PendingTicket ticket) {
+    var opened = new AtomicReference<PendingTickets>();
+    var full = new AtomicReference<PendingTickets>();
+    this.pending.compute(id, (key, group) -> {
+      var current = group == null ? new PendingTickets() : group;
+      if (group == null) {
+        opened.set(current);
+      }
+      if (current.added(ticket) >= this.config.maxSize()) {
+        full.set(current);
+        return null;
+      }
+      return current;
+    });
+    if (full.get() != null) {
+      this.commit(id, full.get());
+    } else if (opened.get() != null) {
+      this.scheduleCommit(id, opened.get());
+    }
+  }
+
+  private void scheduleCommit(final UUID id, final PendingTickets group) {
+    Uni.createFrom().voidItem()
+      .onItem().delayIt().by(this.config.window())
+      .subscribe().with(ignored -> {
+        if (this.pending.remove(id, group)) {
+          this.commit(id, group);
+        }
+      });
+  }
+
+  private void commit(final UUID id, final PendingTickets group) {
+    var tickets = group.asList();
+    this.groupSizes.record(tickets.size());
+    this.connections.transaction(connection -> this.outcomes(connection, id, tickets))
+      .subscribe().with(
+        outcomes -> {
+          this.commits.increment();
+          this.complete(tickets, outcomes);
+        },
+        failure -> {
+          this.fallbacks.increment();
+          tickets.forEach(PendingTicket::retried);
+        }
+      );
+  }
+
+  private void complete(final List<PendingTicket> tickets, final Map<UUID, Consumer<PendingTicket>> outcomes) {
+    for (var ticket : tickets) {
+      var outcome = outcomes.remove(ticket.participant());
+      if (outcome != null) {
+        outcome.accept(ticket);
+      } else {
+        this.duplicate(ticket);
+      }
+    }
+  }
+
+  private void duplicate(final PendingTicket ticket) {
+    ticket.refused(new BookingException(BookingException.Reason.DUPLICATE, "Unable to book twice"));
+  }
+
+  private Uni<Map<UUID, Consumer<PendingTicket>>> outcomes(
+    final Connection connection,
+    final UUID id,
+    final List<PendingTicket> tickets
+  ) {
+    var participants = tickets.stream()
+      .map(PendingTicket::participant)
+      .distinct()
+      .collect(Collectors.toList());
+    return this.availableTickets(connection, id)
+      .onItem().transformToUni(availableTickets -> this.participantsWithTicket(connection, id, participants)
+        .onItem().transformToUni(participantsWithTicket -> this.booked(
+            connection,
+            id,
+            participants.stream()
+              .filter(participant -> !participantsWithTicket.contains(participant))
+              .limit(Math.max(availableTickets, 0))
+              .collect(Collectors.toMap(
+                Function.identity(),
+                participant -> this.newTicketIdSupplier.get(),
+                (first, second) -> first,
+                LinkedHashMap::new
+              ))
+          )
+          .onItem().transform(booked -> this.outcomes(
+            participants,
+            booked,
+            participantsWithTicket,
+            this.refusal(availableTickets)
+          ))
+        )
+      );
+  }
+
+  private Uni<Map<UUID, UUID>> booked(final Connection connection, final UUID id, final Map<UUID, UUID> booked) {
+    if (booked.isEmpty()) {
+      return Uni.createFrom().item(booked);
+    }
+    return this.soldTickets(connection, id, booked.size())
+      .onItem().call(() -> this.tickets(connection, id, booked))
+      .replaceWith(booked);
+  }
+
+  private BookingException refusal(final Integer availableTickets) {
+    return availableTickets < 0
+      ? new BookingException(BookingException.Reason.GONE, "Unable to book a past event")
+      : new BookingException(BookingException.Reason.SOLD_OUT, "Unable to book a sold out event");
+  }
+
+  private Map<UUID, Consumer<PendingTicket>> outcomes(
+    final List<UUID> participants,
+    final Map<UUID, UUID> booked,
+    final Set<UUID> participantsWithTicket,
+    final BookingException refusal
+  ) {
+    var outcomes = new HashMap<UUID, Consumer<PendingTicket>>();
+    for (var participant : participants) {
+      var ticketId = booked.get(participant);
+      if (ticketId != null) {
+        outcomes.put(participant, ticket -> ticket.booked(ticketId));
+      } else if (participantsWithTicket.contains(participant)) {
+        outcomes.put(participant, this::duplicate);
+      } else {
+        outcomes.put(participant, ticket -> ticket.refused(refusal));
+      }
+    }
+    return outcomes;
+  }
+
+  private Uni<Integer> availableTickets(final Connection connection, final UUID id) {
+    return this.rows(
+        this.statement(
+            connection,
+            "SELECT (MAX_TICKETS - SOLD_TICKETS) AS AVAILABLE_TICKETS",
+            "FROM EVENTS",
+            "WHERE ID = $1 AND EVENT_TIMESTAMP >= NOW()",
+            "FOR UPDATE"
+          )
+          .bind("$1", id),
+        (row, rowMetadata) -> row.get("AVAILABLE_TICKETS", Integer.class)
+      )
+      .toUni()
+      .onItem().ifNull().continueWith(-1);
+  }
+
+  private Uni<Set<UUID>> participantsWithTicket(
+    final Connection connection,
+    final UUID id,
+    final List<UUID> participants
+  ) {
+    var statement = this.statement(
+        connection,
+        "SELECT PARTICIPANT_ID FROM TICKETS",
+        "WHERE EVENT_ID = $1 AND PARTICIPANT_ID IN (",
+        IntStream.rangeClosed(2, participants.size() + 1)
+          .mapToObj(index -> "$".concat(String.valueOf(index)))
+          .collect(Collectors.joining(", ")),
+        ")"
+      )
+      .bind("$1", id);
+    for (var index = 0; index < participants.size(); index++) {
+      statement.bind("$".concat(String.valueOf(index + 2)), participants.get(index));
+    }
+    return this.rows(statement, (row, rowMetadata) -> row.get("PARTICIPANT_ID", UUID.class))
+      .collect().in(HashSet::new, Set::add);
+  }
+
+  private Uni<Void> soldTickets(final Connection connection, final UUID id, final Integer tickets) {
+    return this.rowsUpdated(
+        this.statement(
+            connection,
+            "UPDATE EVENTS",
+            "SET SOLD_TICKETS = SOLD_TICKETS + $1",
+            "WHERE ID = $2 AND SOLD_TICKETS + $3 <= MAX_TICKETS"
+          )
+          .bind("$1", tickets)
+          .bind("$2", id)
+          .bind("$3", tickets)
+      )
+      .onItem().transformToUni(rowsUpdated -> this.expected(rowsUpdated, 1));
+  }
+
+  private Uni<Void> tickets(final Connection connection, final UUID id, final Map<UUID, UUID> booked) {
+    var insert = new TicketsInsert(id, booked);
+    return this.rowsUpdated(insert.statement(connection, this.nowSupplier.get()))
+      .onItem().transformToUni(rowsUpdated -> this.expected(rowsUpdated, insert.size()));
+  }
+
+  private Uni<Void> expected(final Integer rowsUpdated, final Integer expected) {
+    if (rowsUpdated.equals(expected)) {
+      return Uni.createFrom().voidItem();
+    }
+    return Uni.createFrom().failure(new IllegalStateException("Unable to commit a group of bookings"));
+  }
+
+  private Statement statement(final Connection connection, final String... pieces) {
+    return connection.createStatement(String.join(" ", pieces));
+  }
+
+  private <T> Multi<T> rows(final Statement statement, final BiFunction<Row, RowMetadata, T> rowFn) {
+    return Multi.createFrom().publisher(statement.execute())
+      .onItem().transformToMultiAndConcatenate(result -> result.map(rowFn));
+  }
+
+  private Uni<Integer> rowsUpdated(final Statement statement) {
+    return Multi.createFrom().publisher(statement.execute())
+      .onItem().transformToMultiAndConcatenate(Result::getRowsUpdated)
+      .collect().with(Collectors.summingInt(Integer::intValue));
+  }
+}
@@ -0,0 +1,169 @@
+package io.github.raffaeleflorio.ticketservice.database.events;
+
+import io.github.raffaeleflorio.ticketservice.Events;
+import io.github.raffaeleflorio.ticketservice.database.DbConnections;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Multi;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The expirations of held tickets.
+ * Holds wait in a delay queue drained by a single thread, that releases them through {@link Events} once expired.
+ * The HOLDS table is read only at startup, to resume the holds outstanding before it.
+ * A hold already confirmed or released is dropped, while a failed release is offered again after a backoff, so that its
+ * ticket doesn't stay sold.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+@ApplicationScoped
+final class HoldExpirations {
+
+  private final Events events;
+  private final DbConnections connections;
+  private final Duration holdDuration;
+  private final DelayQueue<ExpiringHold> holds;
+  private final ExecutorService executor;
+  private final Duration initialBackoff;
+  private final Duration maxBackoff;
+  private final Logger log;
+
+  /**
+   * Builds the expirations
+   *
+   * @param events         The events
+   * @param connections    The database connections
+   * @param holdDuration   How long a ticket is held
+   * @param initialBackoff The delay before releasing again a hold whose release failed the first time
+   * @param maxBackoff     The max delay before releasing again a hold whose release failed
+   */
+  @Inject
+  HoldExpirations(
+    final Events events,
+    final DbConnections connections,
+    @ConfigProperty(name = "ticket-service.booking.hold-duration", defaultValue = "5M") final Duration holdDuration,
+    @ConfigProperty(
+      name = "ticket-service.booking.hold-release.initial-backoff",
+      defaultValue = "1S"
+    ) final Duration initialBackoff,
+    @ConfigProperty(
+      name = "ticket-service.booking.hold-release.max-backoff",
+      defaultValue = "1M"
+    ) final Duration maxBackoff
+  ) {
+    this(
+      events,
+      connections,
+      holdDuration,
+      new DelayQueue<>(),
+      Executors.newSingleThreadExecutor(runnable -> {
+        var thread = new Thread(runnable, "ticket-service-hold-expirations");
+        thread.setDaemon(true);
+        return thread;
+      }),
+      initialBackoff,
+      maxBackoff,
+      Logger.getLogger(HoldExpirations.class)
+    );
+  }
+
+  HoldExpirations(
+    final Events events,
+    final DbConnections connections,
+    final Duration holdDuration,
+    final DelayQueue<ExpiringHold> holds,
+    final ExecutorService executor,
+    final Duration initialBackoff,
+    final Duration maxBackoff,
+    final Logger log
+  ) {
+    this.events = events;
+    this.connections = connections;
+    this.holdDuration = holdDuration;
+    this.holds = holds;
+    this.executor = executor;
+    this.initialBackoff = initialBackoff;
+    this.maxBackoff = maxBackoff;
+    this.log = log;
+  }
+
+  /**
+   * Emits the expiration of a hold starting from a given instant
+   *
+   * @param start The instant when the hold starts
+   * @return The expiration
+   */
+  OffsetDateTime expiration(final OffsetDateTime start) {
+    return start.plus(this.holdDuration);
+  }
+
+  /**
+   * Schedules the expiration of a hold
+   *
+   * @param event      The event's id
+   * @param hold       The hold's id
+   * @param expiration The expiration
+   */
+  void schedule(final UUID event, final UUID hold, final OffsetDateTime expiration) {
+    this.holds.offer(new ExpiringHold(event, hold, expiration.toInstant()));
+  }
+
+  void start(@Observes final StartupEvent startupEvent) {
+    this.executor.execute(this::drain);
+    this.connections.connection(connection -> Multi.createFrom()
+        .publisher(connection.createStatement("SELECT ID, EVENT_ID, EXPIRATION_TIMESTAMP FROM HOLDS").execute())
+        .onItem().transformToMultiAndConcatenate(result -> result.map((row, rowMetadata) -> new ExpiringHold(
+          row.get("EVENT_ID", UUID.class),
+          row.get("ID", UUID.class),
+          row.get("EXPIRATION_TIMESTAMP", OffsetDateTime.class).toInstant()
+        )))
+      )
+      .subscribe().with(this.holds::offer);
+  }
+
+  private void drain() {
+    while (!Thread.currentThread().isInterrupted()) {
+      try {
+        this.release(this.holds.take());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void release(final ExpiringHold hold) {
+    this.events.event(hold.event())
+      .onItem().transformToUniAndMerge(event -> event.release(hold.id()))
+      .subscribe().with(
+        released -> {
+        },
+        failure -> this.failed(hold, failure)
+      );
+  }
+
+  private void failed(final ExpiringHold hold, final Throwable failure) {
+    if (failure instanceof NoSuchElementException) {
+      return;
+    }
+    var retried = hold.retried(Instant.now(), this.initialBackoff, this.maxBackoff);
+    this.log.warnf(failure, "Unable to release the hold %s of the event %s, retrying", hold.id(), hold.event());
+    this.holds.offer(retried);
+  }
+
+  void stop(@Observes final ShutdownEvent shutdownEvent) {
+    this.executor.shutdownNow();
+  }
+}
@@ -0,0 +1,70 @@
+package io.github.raffaeleflorio.ticketservice.database.events;
+
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.UniEmitter;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * A booking waiting to be committed with the others of its group
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class PendingTicket {
+
+  private final UUID participant;
+  private final UniEmitter<? super UUID> emitter;
+  private final Supplier<Uni<UUID>> fallback;
+
+  /**
+   * Builds a pending ticket
+   *
+   * @param participant The participant id
+   * @param emitter     The emitter of the booking's outcome
+   * @param fallback    The booking done on its own
+   */
+  PendingTicket(
+    final UUID participant,
+    final UniEmitter<? super UUID> emitter,
+    final Supplier<Uni<UUID>> fallback
+  ) {
+    this.participant = participant;
+    this.emitter = emitter;
+    this.fallback = fallback;
+  }
+
+  /**
+   * Emits the participant id
+   *
+   * @return The participant id
+   */
+  UUID participant() {
+    return this.participant;
+  }
+
+  /**
+   * Completes the booking with a ticket
+   *
+   * @param ticketId The ticket's id
+   */
+  void booked(final UUID ticketId) {
+    this.emitter.complete(ticketId);
+  }
+
+  /**
+   * Fails the booking
+   *
+   * @param failure The failure
+   */
+  void refused(final Throwable failure) {
+    this.emitter.fail(failure);
+  }
+
+  /**
+   * Books the ticket on its own and completes the booking accordingly
+   */
+  void retried() {
+    this.fallback.get().subscribe().with(this::booked, this::refused);
+  }
+}
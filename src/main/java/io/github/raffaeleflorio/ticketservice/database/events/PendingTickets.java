@@ -0,0 +1,46 @@
+package io.github.raffaeleflorio.ticketservice.database.events;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The group of bookings of an event that are waiting to be committed.
+ * Two groups are equal only if they are the same group.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class PendingTickets {
+
+  private final List<PendingTicket> tickets;
+
+  /**
+   * Builds an empty group
+   */
+  PendingTickets() {
+    this(new ArrayList<>());
+  }
+
+  PendingTickets(final List<PendingTicket> tickets) {
+    this.tickets = tickets;
+  }
+
+  /**
+   * Adds a booking
+   *
+   * @param ticket The booking
+   * @return The size of the group
+   */
+  Integer added(final PendingTicket ticket) {
+    this.tickets.add(ticket);
+    return this.tickets.size();
+  }
+
+  /**
+   * Emits the bookings
+   *
+   * @return The bookings
+   */
+  List<PendingTicket> asList() {
+    return List.copyOf(this.tickets);
+  }
+}
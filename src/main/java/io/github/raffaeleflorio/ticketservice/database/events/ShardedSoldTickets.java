@@ -0,0 +1,90 @@
+package io.github.raffaeleflorio.ticketservice.database.events;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * {@link SoldTickets} split across the EVENT_TICKET_SHARDS rows of an event.
+ * A participant starts from the shard picked by its hash and falls over to the next ones when it is exhausted.
+ * The tickets booked together are taken from a single shard.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class ShardedSoldTickets implements SoldTickets {
+
+  private final UUID id;
+  private final Integer shards;
+  private final SoldTicketsRefusal refusal;
+
+  /**
+   * Builds the counter
+   *
+   * @param id     The event's id
+   * @param shards The number of shards
+   */
+  ShardedSoldTickets(final UUID id, final Integer shards) {
+    this(id, shards, new SoldTicketsRefusal(id));
+  }
+
+  ShardedSoldTickets(final UUID id, final Integer shards, final SoldTicketsRefusal refusal) {
+    this.id = id;
+    this.shards = shards;
+    this.refusal = refusal;
+  }
+
+  @Override
+  public Uni<Integer> incremented(final Connection connection, final UUID participant, final Integer tickets) {
+    var first = Math.floorMod(participant.hashCode(), this.shards);
+    return Multi.createFrom().range(0, this.shards)
+      .onItem().transform(offset -> (first + offset) % this.shards)
+      .onItem().transformToUniAndConcatenate(shard -> this.incremented(connection, shard, tickets))
+      .filter(shard -> shard >= 0)
+      .toUni()
+      .onItem().ifNull().switchTo(() -> this.refusal.failed(connection));
+  }
+
+  private Uni<Integer> incremented(final Connection connection, final Integer shard, final Integer tickets) {
+    return this.rowsUpdated(
+        connection.createStatement(String.join(
+            " ",
+            "UPDATE EVENT_TICKET_SHARDS",
+            "SET SOLD_TICKETS = SOLD_TICKETS + $1",
+            "WHERE EVENT_ID = $2 AND SHARD = $3 AND SOLD_TICKETS + $4 <= MAX_TICKETS",
+            "AND EXISTS (SELECT 1 FROM EVENTS WHERE ID = $5 AND EVENT_TIMESTAMP >= NOW())"
+          ))
+          .bind("$1", tickets)
+          .bind("$2", this.id)
+          .bind("$3", shard)
+          .bind("$4", tickets)
+          .bind("$5", this.id)
+      )
+      .onItem().transform(rowsUpdated -> rowsUpdated > 0 ? shard : -1);
+  }
+
+  @Override
+  public Uni<Void> decremented(final Connection connection, final Integer shard) {
+    return this.rowsUpdated(
+        connection.createStatement(String.join(
+            " ",
+            "UPDATE EVENT_TICKET_SHARDS",
+            "SET SOLD_TICKETS = SOLD_TICKETS - 1",
+            "WHERE EVENT_ID = $1 AND SHARD = $2"
+          ))
+          .bind("$1", this.id)
+          .bind("$2", shard)
+      )
+      .replaceWithVoid();
+  }
+
+  private Uni<Integer> rowsUpdated(final Statement statement) {
+    return Multi.createFrom().publisher(statement.execute())
+      .onItem().transformToMultiAndConcatenate(Result::getRowsUpdated)
+      .collect().with(Collectors.summingInt(Integer::intValue));
+  }
+}
@@ -0,0 +1,35 @@
+package io.github.raffaeleflorio.ticketservice.database.events;
+
+import io.github.raffaeleflorio.ticketservice.BookingException;
+import io.r2dbc.spi.Connection;
+import io.smallrye.mutiny.Uni;
+
+import java.util.UUID;
+
+/**
+ * The sold tickets counter of an event.
+ * It counts both booked tickets and held ones, so that held tickets aren't available.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+interface SoldTickets {
+
+  /**
+   * Increments itself, if the event is upcoming and has enough tickets, within the transaction of a connection
+   *
+   * @param connection  The connection
+   * @param participant The participant that is booking
+   * @param tickets     The number of tickets
+   * @return The incremented shard or a {@link BookingException} if the increment was refused
+   */
+  Uni<Integer> incremented(Connection connection, UUID participant, Integer tickets);
+
+  /**
+   * Decrements a shard of itself within the transaction of a connection
+   *
+   * @param connection The connection
+   * @param shard      The shard previously incremented
+   * @return Nothing
+   */
+  Uni<Void> decremented(Connection connection, Integer shard);
+}
@@ -0,0 +1,53 @@
+package io.github.raffaeleflorio.ticketservice.database.events;
+
+import io.github.raffaeleflorio.ticketservice.BookingException;
+import io.r2dbc.spi.Connection;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+
+import java.util.UUID;
+
+/**
+ * The refusal of an increment of the {@link SoldTickets} of an event.
+ * An increment is refused because the event is sold out or because it isn't upcoming anymore: only in this case it's
+ * queried which one, so a successful booking doesn't pay for it.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class SoldTicketsRefusal {
+
+  private final UUID id;
+
+  /**
+   * Builds a refusal
+   *
+   * @param id The event's id
+   */
+  SoldTicketsRefusal(final UUID id) {
+    this.id = id;
+  }
+
+  /**
+   * Fails with the reason of the refusal, within the transaction of a connection
+   *
+   * @param connection The connection
+   * @param <T>        The expected item type
+   * @return A {@link BookingException} failure
+   */
+  <T> Uni<T> failed(final Connection connection) {
+    return Multi.createFrom().publisher(
+        connection.createStatement("SELECT EVENT_TIMESTAMP >= NOW() AS UPCOMING FROM EVENTS WHERE ID = $1")
+          .bind("$1", this.id)
+          .execute()
+      )
+      .onItem().transformToMultiAndConcatenate(result ->
+        result.map((row, rowMetadata) -> row.get("UPCOMING", Boolean.class))
+      )
+      .toUni()
+      .onItem().transformToUni(upcoming -> Uni.createFrom().failure(
+        Boolean.TRUE.equals(upcoming)
+          ? new BookingException(BookingException.Reason.SOLD_OUT, "Unable to book a sold out event")
+          : new BookingException(BookingException.Reason.GONE, "Unable to book a past event")
+      ));
+  }
+}
@@ -0,0 +1,40 @@
+package io.github.raffaeleflorio.ticketservice.database.events;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * The split of the max tickets of an event across its sold tickets shards.
+ * Each shard keeps its sold tickets and gets a share of the remaining ones, so the shards never sell more than the max
+ * tickets, or than the already sold ones when the max is lowered below them.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class TicketShardsSplit {
+
+  private final Integer maxTickets;
+
+  /**
+   * Builds a split
+   *
+   * @param maxTickets The event's max tickets
+   */
+  TicketShardsSplit(final Integer maxTickets) {
+    this.maxTickets = maxTickets;
+  }
+
+  /**
+   * Emits the max tickets of each shard
+   *
+   * @param soldTickets The sold tickets of each shard
+   * @return The max tickets of each shard, in the same order
+   */
+  List<Integer> maxTickets(final List<Integer> soldTickets) {
+    var shards = soldTickets.size();
+    var remaining = Math.max(0, this.maxTickets - soldTickets.stream().mapToInt(Integer::intValue).sum());
+    return IntStream.range(0, shards)
+      .mapToObj(shard -> soldTickets.get(shard) + remaining / shards + (shard < remaining % shards ? 1 : 0))
+      .collect(Collectors.toUnmodifiableList());
+  }
+}
@@ -0,0 +1,71 @@
+package io.github.raffaeleflorio.ticketservice.database.events;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Statement;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * A multi-row insert of the TICKETS of an event
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class TicketsInsert {
+
+  private final UUID event;
+  private final Map<UUID, UUID> participantsTickets;
+
+  /**
+   * Builds the insert
+   *
+   * @param event               The event's id
+   * @param participantsTickets The tickets' ids by participant id
+   */
+  TicketsInsert(final UUID event, final Map<UUID, UUID> participantsTickets) {
+    this.event = event;
+    this.participantsTickets = participantsTickets;
+  }
+
+  /**
+   * Emits itself as a statement of a connection
+   *
+   * @param connection The connection
+   * @param now        The creation timestamp of the tickets
+   * @return The statement
+   */
+  Statement statement(final Connection connection, final OffsetDateTime now) {
+    var statement = connection.createStatement(String.join(
+      " ",
+      "INSERT INTO TICKETS",
+      "(ID, EVENT_ID, PARTICIPANT_ID, CREATION_TIMESTAMP)",
+      "VALUES",
+      IntStream.range(0, this.participantsTickets.size())
+        .map(row -> row * 4)
+        .mapToObj(offset -> String.format("($%d, $%d, $%d, $%d)", offset + 1, offset + 2, offset + 3, offset + 4))
+        .collect(Collectors.joining(", "))
+    ));
+    var offset = 0;
+    for (var participantTicket : this.participantsTickets.entrySet()) {
+      statement
+        .bind("$".concat(String.valueOf(offset + 1)), participantTicket.getValue())
+        .bind("$".concat(String.valueOf(offset + 2)), this.event)
+        .bind("$".concat(String.valueOf(offset + 3)), participantTicket.getKey())
+        .bind("$".concat(String.valueOf(offset + 4)), now);
+      offset += 4;
+    }
+    return statement;
+  }
+
+  /**
+   * Emits the number of rows it inserts
+   *
+   * @return The number of rows
+   */
+  Integer size() {
+    return this.participantsTickets.size();
+  }
+}
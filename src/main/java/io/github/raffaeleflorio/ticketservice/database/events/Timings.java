@@ -0,0 +1,87 @@
+package io.github.raffaeleflorio.ticketservice.database.events;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * The latencies of some database operations, each one recorded by a timer registered once and tagged with its name.
+ * A latency is recorded on termination, so failed and cancelled operations are recorded too.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class Timings {
+
+  private final Map<String, Timer> timers;
+
+  /**
+   * Builds the timings
+   *
+   * @param registry    The registry where timers are registered
+   * @param name        The timers name
+   * @param description The timers description
+   * @param tag         The tag key of the operation name
+   * @param operations  The operation names
+   */
+  Timings(
+    final MeterRegistry registry,
+    final String name,
+    final String description,
+    final String tag,
+    final List<String> operations
+  ) {
+    this(
+      operations.stream().collect(Collectors.toUnmodifiableMap(
+        Function.identity(),
+        operation -> Timer.builder(name)
+          .description(description)
+          .tag(tag, operation)
+          .publishPercentileHistogram()
+          .register(registry)
+      ))
+    );
+  }
+
+  Timings(final Map<String, Timer> timers) {
+    this.timers = timers;
+  }
+
+  /**
+   * Records the latency of a single result operation
+   *
+   * @param operation The operation name
+   * @param work      The operation
+   * @param <T>       The result type
+   * @return The timed operation
+   */
+  <T> Uni<T> timed(final String operation, final Supplier<Uni<T>> work) {
+    var timer = this.timers.get(operation);
+    return Uni.createFrom().deferred(() -> {
+      var sample = Timer.start();
+      return work.get().onTermination().invoke(() -> sample.stop(timer));
+    });
+  }
+
+  /**
+   * Records the latency, until the last item, of a multiple results operation
+   *
+   * @param operation The operation name
+   * @param work      The operation
+   * @param <T>       The results type
+   * @return The timed operation
+   */
+  <T> Multi<T> timedMulti(final String operation, final Supplier<Multi<T>> work) {
+    var timer = this.timers.get(operation);
+    return Multi.createFrom().deferred(() -> {
+      var sample = Timer.start();
+      return work.get().onTermination().invoke(() -> sample.stop(timer));
+    });
+  }
+}
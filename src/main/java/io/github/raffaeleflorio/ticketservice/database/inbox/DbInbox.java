@@ -0,0 +1,216 @@
+package io.github.raffaeleflorio.ticketservice.database.inbox;
+
+import io.github.raffaeleflorio.ticketservice.Inbox;
+import io.github.raffaeleflorio.ticketservice.database.DbConnections;
+import io.micrometer.core.instrument.Counter;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import java.io.StringReader;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * {@link Inbox} backed by the INBOX table.
+ * A notification is claimed by pushing its next attempt forward by a lease before being handled,
+ * so concurrent drains don't handle it twice.
+ * It's given up once its attempts are exhausted: it stays in the table without a next attempt.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class DbInbox implements Inbox {
+
+  private final DbConnections connections;
+  private final InboxConfig config;
+  private final Supplier<UUID> newNotificationIdSupplier;
+  private final Supplier<OffsetDateTime> nowSupplier;
+  private final Counter handled;
+  private final Counter retried;
+  private final Counter givenUp;
+
+  /**
+   * Builds an inbox
+   *
+   * @param connections               The database connections
+   * @param config                    The inbox configuration
+   * @param newNotificationIdSupplier The supplier of new notification ids
+   * @param nowSupplier               The supplier of the current instant
+   * @param handled                   The counter of handled notifications
+   * @param retried                   The counter of failed attempts that will be retried
+   * @param givenUp                   The counter of given up notifications
+   */
+  DbInbox(
+    final DbConnections connections,
+    final InboxConfig config,
+    final Supplier<UUID> newNotificationIdSupplier,
+    final Supplier<OffsetDateTime> nowSupplier,
+    final Counter handled,
+    final Counter retried,
+    final Counter givenUp
+  ) {
+    this.connections = connections;
+    this.config = config;
+    this.newNotificationIdSupplier = newNotificationIdSupplier;
+    this.nowSupplier = nowSupplier;
+    this.handled = handled;
+    this.retried = retried;
+    this.givenUp = givenUp;
+  }
+
+  @Override
+  public Uni<Void> notification(final JsonObject notification) {
+    var now = this.nowSupplier.get();
+    return this.connections.connection(connection -> this.rowsUpdated(
+          this.statement(
+              connection,
+              "INSERT INTO INBOX (ID, PAYLOAD, ATTEMPTS, NEXT_ATTEMPT_TIMESTAMP, CREATION_TIMESTAMP)",
+              "VALUES ($1, $2, 0, $3, $4)"
+            )
+            .bind("$1", this.newNotificationIdSupplier.get())
+            .bind("$2", notification.toString())
+            .bind("$3", now)
+            .bind("$4", now)
+        ).toMulti()
+      )
+      .toUni()
+      .onItem().transformToUni(rowsUpdated -> this.expected(rowsUpdated, "Unable to store a notification"));
+  }
+
+  @Override
+  public Uni<Integer> drained(
+    final Integer size,
+    final Integer concurrency,
+    final Function<JsonObject, Uni<Void>> handler
+  ) {
+    var now = this.nowSupplier.get();
+    return this.connections.connection(connection -> Multi.createFrom().publisher(
+          this.statement(
+              connection,
+              "SELECT ID, PAYLOAD, ATTEMPTS, NEXT_ATTEMPT_TIMESTAMP FROM INBOX",
+              "WHERE NEXT_ATTEMPT_TIMESTAMP <= $1",
+              "ORDER BY NEXT_ATTEMPT_TIMESTAMP",
+              "LIMIT $2"
+            )
+            .bind("$1", now)
+            .bind("$2", size)
+            .execute()
+        )
+        .onItem().transformToMultiAndConcatenate(result -> result.map((row, rowMetadata) -> new InboxRow(
+          row.get("ID", UUID.class),
+          Json.createReader(new StringReader(row.get("PAYLOAD", String.class))).readObject(),
+          row.get("ATTEMPTS", Integer.class),
+          row.get("NEXT_ATTEMPT_TIMESTAMP", OffsetDateTime.class)
+        )))
+      )
+      .collect().asList()
+      .onItem().transformToMulti(rows -> Multi.createFrom().iterable(rows))
+      .onItem().transformToUni(row -> this.handled(row, handler)).merge(concurrency)
+      .collect().with(Collectors.summingInt(Integer::intValue));
+  }
+
+  private Uni<Integer> handled(final InboxRow row, final Function<JsonObject, Uni<Void>> handler) {
+    return this.claimed(row)
+      .onItem().transformToUni(claimed -> claimed
+        ? this.attempted(row, handler)
+        : Uni.createFrom().item(0)
+      );
+  }
+
+  private Uni<Boolean> claimed(final InboxRow row) {
+    return this.updated(
+      connection -> this.statement(
+          connection,
+          "UPDATE INBOX SET NEXT_ATTEMPT_TIMESTAMP = $1",
+          "WHERE ID = $2 AND NEXT_ATTEMPT_TIMESTAMP = $3"
+        )
+        .bind("$1", this.nowSupplier.get().plus(this.config.lease()))
+        .bind("$2", row.id())
+        .bind("$3", row.nextAttempt())
+    ).onItem().transform(rowsUpdated -> rowsUpdated > 0);
+  }
+
+  private Uni<Integer> attempted(final InboxRow row, final Function<JsonObject, Uni<Void>> handler) {
+    return Uni.createFrom().deferred(() -> handler.apply(row.payload()))
+      .onItem().transformToUni(handled -> this.removed(row))
+      .onItem().invoke(() -> this.handled.increment())
+      .onItem().transform(removed -> 1)
+      .onFailure().recoverWithUni(() -> this.rescheduled(row).replaceWith(0));
+  }
+
+  private Uni<Integer> removed(final InboxRow row) {
+    return this.updated(
+      connection -> this.statement(connection, "DELETE FROM INBOX WHERE ID = $1").bind("$1", row.id())
+    );
+  }
+
+  private Uni<Integer> rescheduled(final InboxRow row) {
+    var attempts = row.attempts() + 1;
+    if (attempts >= this.config.maxAttempts()) {
+      return this.updated(
+        connection -> this.statement(
+            connection,
+            "UPDATE INBOX SET ATTEMPTS = $1, NEXT_ATTEMPT_TIMESTAMP = NULL WHERE ID = $2"
+          )
+          .bind("$1", attempts)
+          .bind("$2", row.id())
+      ).onItem().invoke(() -> this.givenUp.increment());
+    }
+    return this.updated(
+      connection -> this.statement(
+          connection,
+          "UPDATE INBOX SET ATTEMPTS = $1, NEXT_ATTEMPT_TIMESTAMP = $2 WHERE ID = $3"
+        )
+        .bind("$1", attempts)
+        .bind("$2", this.nowSupplier.get().plus(this.backoff(attempts)))
+        .bind("$3", row.id())
+    ).onItem().invoke(() -> this.retried.increment());
+  }
+
+  private Duration backoff(final Integer attempts) {
+    var backoff = this.config.initialBackoff().multipliedBy(1L << Math.min(attempts - 1, 30));
+    return backoff.compareTo(this.config.maxBackoff()) > 0 ? this.config.maxBackoff() : backoff;
+  }
+
+  @Override
+  public Uni<Long> depth() {
+    return this.connections.connection(connection -> Multi.createFrom().publisher(
+          this.statement(connection, "SELECT COUNT(*) AS DEPTH FROM INBOX WHERE NEXT_ATTEMPT_TIMESTAMP IS NOT NULL")
+            .execute()
+        )
+        .onItem().transformToMultiAndConcatenate(
+          result -> result.map((row, rowMetadata) -> row.get("DEPTH", Long.class))
+        )
+      )
+      .toUni();
+  }
+
+  private Uni<Integer> updated(final Function<Connection, Statement> statement) {
+    return this.connections.connection(connection -> this.rowsUpdated(statement.apply(connection)).toMulti()).toUni();
+  }
+
+  private Statement statement(final Connection connection, final String... pieces) {
+    return connection.createStatement(String.join(" ", pieces));
+  }
+
+  private Uni<Integer> rowsUpdated(final Statement statement) {
+    return Multi.createFrom().publisher(statement.execute())
+      .onItem().transformToMultiAndConcatenate(Result::getRowsUpdated)
+      .collect().with(Collectors.summingInt(Integer::intValue));
+  }
+
+  private Uni<Void> expected(final Integer rowsUpdated, final String failure) {
+    if (rowsUpdated > 0) {
+      return Uni.createFrom().voidItem();
+    }
+    return Uni.createFrom().failure(new RuntimeException(failure));
+  }
+}
@@ -0,0 +1,47 @@
+package io.github.raffaeleflorio.ticketservice.database.inbox;
+
+import io.github.raffaeleflorio.ticketservice.Inbox;
+import io.github.raffaeleflorio.ticketservice.database.DbConnections;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Produces;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+@ApplicationScoped
+class DbInboxFactories {
+
+  private final DbConnections connections;
+  private final InboxConfig config;
+  private final MeterRegistry registry;
+
+  DbInboxFactories(final DbConnections connections, final InboxConfig config, final MeterRegistry registry) {
+    this.connections = connections;
+    this.config = config;
+    this.registry = registry;
+  }
+
+  @Produces
+  @ApplicationScoped
+  Inbox inbox() {
+    return new DbInbox(
+      this.connections,
+      this.config,
+      UUID::randomUUID,
+      () -> OffsetDateTime.now(ZoneOffset.UTC),
+      this.notifications("handled"),
+      this.notifications("retried"),
+      this.notifications("given-up")
+    );
+  }
+
+  private Counter notifications(final String outcome) {
+    return Counter.builder("ticket-service.inbox.notifications")
+      .description("Attempts to handle inbox notifications")
+      .tag("outcome", outcome)
+      .register(this.registry);
+  }
+}
@@ -0,0 +1,47 @@
+package io.github.raffaeleflorio.ticketservice.database.inbox;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+/**
+ * The typed configuration of the retries of the inbox
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+@ConfigMapping(prefix = "ticket-service.inbox")
+interface InboxConfig {
+
+  /**
+   * Emits how long a claimed notification is hidden from other drains
+   *
+   * @return The lease
+   */
+  @WithDefault("1M")
+  Duration lease();
+
+  /**
+   * Emits the delay after the first failed attempt, doubled after each further one
+   *
+   * @return The initial backoff
+   */
+  @WithDefault("1S")
+  Duration initialBackoff();
+
+  /**
+   * Emits the max delay between two attempts
+   *
+   * @return The max backoff
+   */
+  @WithDefault("5M")
+  Duration maxBackoff();
+
+  /**
+   * Emits the number of attempts before giving up a notification
+   *
+   * @return The max attempts
+   */
+  @WithDefault("10")
+  Integer maxAttempts();
+}
@@ -0,0 +1,69 @@
+package io.github.raffaeleflorio.ticketservice.database.inbox;
+
+import javax.json.JsonObject;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * A notification read from the INBOX table
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class InboxRow {
+
+  private final UUID id;
+  private final JsonObject payload;
+  private final Integer attempts;
+  private final OffsetDateTime nextAttempt;
+
+  /**
+   * Builds a row
+   *
+   * @param id          The notification's id
+   * @param payload     The notification
+   * @param attempts    The number of failed attempts
+   * @param nextAttempt When the notification is due
+   */
+  InboxRow(final UUID id, final JsonObject payload, final Integer attempts, final OffsetDateTime nextAttempt) {
+    this.id = id;
+    this.payload = payload;
+    this.attempts = attempts;
+    this.nextAttempt = nextAttempt;
+  }
+
+  /**
+   * Emits the notification's id
+   *
+   * @return The id
+   */
+  UUID id() {
+    return this.id;
+  }
+
+  /**
+   * Emits the notification
+   *
+   * @return The notification
+   */
+  JsonObject payload() {
+    return this.payload;
+  }
+
+  /**
+   * Emits the number of failed attempts
+   *
+   * @return The number of failed attempts
+   */
+  Integer attempts() {
+    return this.attempts;
+  }
+
+  /**
+   * Emits when the notification is due
+   *
+   * @return The instant
+   */
+  OffsetDateTime nextAttempt() {
+    return this.nextAttempt;
+  }
+}
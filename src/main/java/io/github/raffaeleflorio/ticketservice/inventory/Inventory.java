@@ -0,0 +1,76 @@
+package io.github.raffaeleflorio.ticketservice.inventory;
+
+import io.smallrye.mutiny.Uni;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Lock-free remaining tickets counters of events
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class Inventory {
+
+  private final ConcurrentMap<UUID, Uni<AtomicInteger>> counters;
+
+  /**
+   * Builds an empty inventory
+   */
+  Inventory() {
+    this(new ConcurrentHashMap<>());
+  }
+
+  Inventory(final ConcurrentMap<UUID, Uni<AtomicInteger>> counters) {
+    this.counters = counters;
+  }
+
+  /**
+   * Reserves tickets of an event, all or nothing.
+   * The counter of an unknown event is seeded once from the given supplier, even under concurrent reservations.
+   *
+   * @param id      The event's id
+   * @param seed    The supplier of the event's remaining tickets
+   * @param tickets The number of tickets
+   * @return True if the tickets were reserved, false if the event hasn't enough tickets
+   */
+  Uni<Boolean> reserved(final UUID id, final Supplier<Uni<Integer>> seed, final Integer tickets) {
+    return this.counters
+      .computeIfAbsent(id, key -> this.seeded(key, seed))
+      .onItem().transform(counter ->
+        counter.getAndUpdate(remaining -> remaining >= tickets ? remaining - tickets : remaining) >= tickets
+      );
+  }
+
+  private Uni<AtomicInteger> seeded(final UUID id, final Supplier<Uni<Integer>> seed) {
+    return Uni.createFrom().deferred(seed::get)
+      .onItem().transform(AtomicInteger::new)
+      .onFailure().invoke(() -> this.forget(id))
+      .memoize().indefinitely();
+  }
+
+  /**
+   * Gives back reserved tickets of an event
+   *
+   * @param id      The event's id
+   * @param tickets The number of tickets
+   */
+  void released(final UUID id, final Integer tickets) {
+    var counter = this.counters.get(id);
+    if (counter != null) {
+      counter.subscribe().with(remaining -> remaining.addAndGet(tickets));
+    }
+  }
+
+  /**
+   * Forgets the counter of an event, so that it will be seeded again
+   *
+   * @param id The event's id
+   */
+  void forget(final UUID id) {
+    this.counters.remove(id);
+  }
+}
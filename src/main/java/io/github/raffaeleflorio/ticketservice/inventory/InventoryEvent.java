@@ -0,0 +1,125 @@
+package io.github.raffaeleflorio.ticketservice.inventory;
+
+import io.github.raffaeleflorio.ticketservice.BookingException;
+import io.github.raffaeleflorio.ticketservice.Event;
+import io.smallrye.mutiny.Uni;
+
+import javax.json.JsonObject;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * An {@link Event} that reserves a ticket in memory before booking it.
+ * A sold out event, or a participant that recently booked it, is refused without reaching its origin.
+ * A participant whose booking is still in flight is refused as retriable, since that booking may still fail.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class InventoryEvent implements Event {
+
+  private final UUID id;
+  private final Event origin;
+  private final Inventory inventory;
+  private final RecentBookings recentBookings;
+
+  /**
+   * Builds an event
+   *
+   * @param id             The event's id
+   * @param origin         The decorated event
+   * @param inventory      The inventory
+   * @param recentBookings The recent bookings
+   */
+  InventoryEvent(final UUID id, final Event origin, final Inventory inventory, final RecentBookings recentBookings) {
+    this.id = id;
+    this.origin = origin;
+    this.inventory = inventory;
+    this.recentBookings = recentBookings;
+  }
+
+  @Override
+  public Uni<JsonObject> asJsonObject() {
+    return this.origin.asJsonObject();
+  }
+
+  @Override
+  public Uni<UUID> ticket(final UUID participant) {
+    return this.deduplicated(List.of(participant), () -> this.reserved(1, () -> this.origin.ticket(participant)));
+  }
+
+  private <T> Uni<T> deduplicated(final List<UUID> participants, final Supplier<Uni<T>> booking) {
+    return Uni.createFrom().deferred(() -> this.recentBookings.first(this.id, participants)
+      ? this.remembered(participants, booking.get())
+      : Uni.createFrom().failure(this.refusal(participants))
+    );
+  }
+
+  private BookingException refusal(final List<UUID> participants) {
+    return this.recentBookings.pending(this.id, participants)
+      ? new BookingException(BookingException.Reason.IN_FLIGHT, "Unable to book while another booking is in flight")
+      : new BookingException(BookingException.Reason.DUPLICATE, "Unable to book twice");
+  }
+
+  private <T> Uni<T> remembered(final List<UUID> participants, final Uni<T> booking) {
+    return booking
+      .onItem().invoke(() -> this.recentBookings.booked(this.id, participants))
+      .onFailure(this::duplicate).invoke(() -> this.recentBookings.booked(this.id, participants))
+      .onFailure(failure -> !this.duplicate(failure)).invoke(() -> this.recentBookings.forget(this.id, participants))
+      .onCancellation().invoke(() -> this.recentBookings.forget(this.id, participants));
+  }
+
+  private Boolean duplicate(final Throwable failure) {
+    return BookingException.Reason.of(failure) == BookingException.Reason.DUPLICATE;
+  }
+
+  private <T> Uni<T> reserved(final Integer tickets, final Supplier<Uni<T>> booking) {
+    return this.inventory.reserved(this.id, this::availableTickets, tickets)
+      .onFailure().transform(failure -> new BookingException(
+        BookingException.Reason.INFRASTRUCTURE,
+        "Unable to reserve a ticket",
+        failure
+      ))
+      .onItem().transformToUni(reserved -> reserved
+        ? this.booked(tickets, booking.get())
+        : Uni.createFrom().<T>failure(
+          new BookingException(BookingException.Reason.SOLD_OUT, "Unable to book a sold out event")
+        )
+      );
+  }
+
+  private <T> Uni<T> booked(final Integer tickets, final Uni<T> booking) {
+    return booking
+      .onFailure().invoke(() -> this.inventory.released(this.id, tickets))
+      .onCancellation().invoke(() -> this.inventory.released(this.id, tickets));
+  }
+
+  @Override
+  public Uni<List<UUID>> tickets(final List<UUID> participants) {
+    return this.deduplicated(
+      participants,
+      () -> this.reserved(participants.size(), () -> this.origin.tickets(participants))
+    );
+  }
+
+  @Override
+  public Uni<UUID> hold(final UUID participant) {
+    return this.reserved(1, () -> this.origin.hold(participant));
+  }
+
+  @Override
+  public Uni<UUID> confirm(final UUID hold) {
+    return this.origin.confirm(hold);
+  }
+
+  @Override
+  public Uni<Void> release(final UUID hold) {
+    return this.origin.release(hold)
+      .onItem().invoke(() -> this.inventory.released(this.id, 1));
+  }
+
+  private Uni<Integer> availableTickets() {
+    return this.origin.asJsonObject()
+      .onItem().transform(event -> event.getInt("availableTickets"));
+  }
+}
@@ -0,0 +1,111 @@
+package io.github.raffaeleflorio.ticketservice.inventory;
+
+import io.github.raffaeleflorio.ticketservice.Event;
+import io.github.raffaeleflorio.ticketservice.Events;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+
+import javax.json.JsonObject;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * {@link Events} that keep an in-memory inventory of remaining tickets.
+ * Its origin stays authoritative: the inventory only rejects bookings of sold out events and the ones of participants
+ * that recently booked the same event.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+public final class InventoryEvents implements Events {
+
+  private final Events origin;
+  private final Inventory inventory;
+  private final RecentBookings recentBookings;
+
+  /**
+   * Builds events
+   *
+   * @param origin          The decorated events
+   * @param bookingsWindow  How long a booking is remembered to refuse duplicates
+   * @param bookingsMaxSize The number of remembered bookings over which expired ones are evicted
+   */
+  public InventoryEvents(final Events origin, final Duration bookingsWindow, final Integer bookingsMaxSize) {
+    this(origin, new Inventory(), new RecentBookings(bookingsWindow, bookingsMaxSize));
+  }
+
+  InventoryEvents(final Events origin, final Inventory inventory, final RecentBookings recentBookings) {
+    this.origin = origin;
+    this.inventory = inventory;
+    this.recentBookings = recentBookings;
+  }
+
+  @Override
+  public Uni<Event> event(final JsonObject event) {
+    return this.origin.event(event)
+      .onItem().transformToUni(added -> added.asJsonObject()
+        .onItem().transform(json -> UUID.fromString(json.getString("id")))
+        .onItem().invoke(this.inventory::forget)
+        .onItem().transform(id -> new InventoryEvent(id, added, this.inventory, this.recentBookings))
+      );
+  }
+
+  @Override
+  public Uni<List<Event>> events(final List<JsonObject> events) {
+    return this.origin.events(events)
+      .onItem().transformToUni(upserted -> Multi.createFrom().iterable(upserted)
+        .onItem().transformToUniAndConcatenate(Event::asJsonObject)
+        .onItem().transform(json -> UUID.fromString(json.getString("id")))
+        .onItem().invoke(this.inventory::forget)
+        .collect().last()
+        .replaceWith(upserted)
+      );
+  }
+
+  @Override
+  public Multi<Event> event(final UUID id) {
+    return this.origin.event(id)
+      .onItem().transform(event -> new InventoryEvent(id, event, this.inventory, this.recentBookings));
+  }
+
+  @Override
+  public Events upcoming() {
+    return new InventoryEvents(this.origin.upcoming(), this.inventory, this.recentBookings);
+  }
+
+  @Override
+  public Events after(final OffsetDateTime date, final UUID id) {
+    return new InventoryEvents(this.origin.after(date, id), this.inventory, this.recentBookings);
+  }
+
+  @Override
+  public Events since(final OffsetDateTime date) {
+    return new InventoryEvents(this.origin.since(date), this.inventory, this.recentBookings);
+  }
+
+  @Override
+  public Events until(final OffsetDateTime date) {
+    return new InventoryEvents(this.origin.until(date), this.inventory, this.recentBookings);
+  }
+
+  @Override
+  public Events available() {
+    return new InventoryEvents(this.origin.available(), this.inventory, this.recentBookings);
+  }
+
+  @Override
+  public Events first(final Integer size) {
+    return new InventoryEvents(this.origin.first(size), this.inventory, this.recentBookings);
+  }
+
+  @Override
+  public Uni<JsonObject> asJsonObject() {
+    return this.origin.asJsonObject();
+  }
+
+  @Override
+  public Multi<JsonObject> asJsonStream() {
+    return this.origin.asJsonStream();
+  }
+}
@@ -0,0 +1,150 @@
+package io.github.raffaeleflorio.ticketservice.inventory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * The participants that booked, or are booking, a ticket of an event within a window.
+ * A participant has at most a ticket of an event, so booking again within the window is a duplicate.
+ * A booking is pending until it's completed, so that a retry of a booking that may still fail isn't a duplicate.
+ * Expired bookings are swept at most once per window.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class RecentBookings {
+
+  private final Duration window;
+  private final Integer maxSize;
+  private final ConcurrentMap<List<UUID>, Booking> bookings;
+  private final AtomicReference<Instant> nextSweep;
+  private final Supplier<Instant> nowSupplier;
+
+  /**
+   * Builds the recent bookings
+   *
+   * @param window  How long a booking is remembered
+   * @param maxSize The number of remembered bookings over which expired ones are evicted
+   */
+  RecentBookings(final Duration window, final Integer maxSize) {
+    this(window, maxSize, new ConcurrentHashMap<>(), new AtomicReference<>(Instant.MIN), Instant::now);
+  }
+
+  RecentBookings(
+    final Duration window,
+    final Integer maxSize,
+    final ConcurrentMap<List<UUID>, Booking> bookings,
+    final AtomicReference<Instant> nextSweep,
+    final Supplier<Instant> nowSupplier
+  ) {
+    this.window = window;
+    this.maxSize = maxSize;
+    this.bookings = bookings;
+    this.nextSweep = nextSweep;
+    this.nowSupplier = nowSupplier;
+  }
+
+  /**
+   * Remembers the pending bookings of some participants, all or nothing
+   *
+   * @param id           The event's id
+   * @param participants The participants ids
+   * @return True if none of them booked, or is booking, within the window
+   */
+  Boolean first(final UUID id, final List<UUID> participants) {
+    var now = this.nowSupplier.get();
+    var pending = new Booking(now.plus(this.window), true);
+    var nextSweep = this.nextSweep.get();
+    if (
+      this.bookings.size() > this.maxSize
+        && now.isAfter(nextSweep)
+        && this.nextSweep.compareAndSet(nextSweep, pending.expiration())
+    ) {
+      this.bookings.values().removeIf(booking -> booking.expired(now));
+    }
+    for (var index = 0; index < participants.size(); index++) {
+      if (!this.first(List.of(id, participants.get(index)), now, pending)) {
+        this.forget(id, participants.subList(0, index));
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private Boolean first(final List<UUID> key, final Instant now, final Booking pending) {
+    var previous = this.bookings.get(key);
+    if (previous != null && !previous.expired(now)) {
+      return false;
+    }
+    return previous == null
+      ? this.bookings.putIfAbsent(key, pending) == null
+      : this.bookings.replace(key, previous, pending);
+  }
+
+  /**
+   * Completes the bookings of some participants, so that booking again within the window is a duplicate
+   *
+   * @param id           The event's id
+   * @param participants The participants ids
+   */
+  void booked(final UUID id, final List<UUID> participants) {
+    var booked = new Booking(this.nowSupplier.get().plus(this.window), false);
+    for (var participant : participants) {
+      this.bookings.put(List.of(id, participant), booked);
+    }
+  }
+
+  /**
+   * Checks whether any participant is booking
+   *
+   * @param id           The event's id
+   * @param participants The participants ids
+   * @return True if any of them has a pending booking
+   */
+  Boolean pending(final UUID id, final List<UUID> participants) {
+    var now = this.nowSupplier.get();
+    return participants.stream()
+      .map(participant -> this.bookings.get(List.of(id, participant)))
+      .anyMatch(booking -> booking != null && booking.pending() && !booking.expired(now));
+  }
+
+  /**
+   * Forgets the bookings of some participants, so that they're accepted again
+   *
+   * @param id           The event's id
+   * @param participants The participants ids
+   */
+  void forget(final UUID id, final List<UUID> participants) {
+    for (var participant : participants) {
+      this.bookings.remove(List.of(id, participant));
+    }
+  }
+
+  static final class Booking {
+
+    private final Instant expiration;
+    private final Boolean pending;
+
+    Booking(final Instant expiration, final Boolean pending) {
+      this.expiration = expiration;
+      this.pending = pending;
+    }
+
+    Instant expiration() {
+      return this.expiration;
+    }
+
+    Boolean pending() {
+      return this.pending;
+    }
+
+    Boolean expired(final Instant now) {
+      return now.isAfter(this.expiration);
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package io.github.raffaeleflorio.ticketservice.live;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.operators.multi.processors.BroadcastProcessor;
+import io.smallrye.mutiny.subscription.Cancellable;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.json.Json;
+import javax.json.JsonObject;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The broadcaster of available tickets changes.
+ * Changes of an event are summed over a window and pushed once to every subscriber.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+@ApplicationScoped
+public final class LiveAvailability {
+
+  private final Duration window;
+  private final ConcurrentMap<UUID, Integer> deltas;
+  private final BroadcastProcessor<JsonObject> processor;
+  private final AtomicReference<Cancellable> ticks;
+
+  /**
+   * Builds the broadcaster
+   *
+   * @param window The window over which the changes of an event are summed
+   */
+  @Inject
+  LiveAvailability(
+    @ConfigProperty(name = "ticket-service.events.live.window", defaultValue = "250MS") final Duration window
+  ) {
+    this(window, new ConcurrentHashMap<>(), BroadcastProcessor.create(), new AtomicReference<>());
+  }
+
+  LiveAvailability(
+    final Duration window,
+    final ConcurrentMap<UUID, Integer> deltas,
+    final BroadcastProcessor<JsonObject> processor,
+    final AtomicReference<Cancellable> ticks
+  ) {
+    this.window = window;
+    this.deltas = deltas;
+    this.processor = processor;
+    this.ticks = ticks;
+  }
+
+  void start(@Observes final StartupEvent startupEvent) {
+    this.ticks.set(
+      Multi.createFrom().ticks().every(this.window)
+        .subscribe().with(tick -> this.flush())
+    );
+  }
+
+  private void flush() {
+    for (var id : this.deltas.keySet()) {
+      var delta = this.deltas.remove(id);
+      if (delta != null && delta != 0) {
+        this.processor.onNext(
+          Json.createObjectBuilder()
+            .add("id", id.toString())
+            .add("availableTicketsDelta", delta)
+            .build()
+        );
+      }
+    }
+  }
+
+  void stop(@Observes final ShutdownEvent shutdownEvent) {
+    var ticks = this.ticks.getAndSet(null);
+    if (ticks != null) {
+      ticks.cancel();
+    }
+    this.processor.onComplete();
+  }
+
+  /**
+   * Records a change of the available tickets of an event
+   *
+   * @param id    The event's id
+   * @param delta The change
+   */
+  public void changed(final UUID id, final Integer delta) {
+    this.deltas.merge(id, delta, Integer::sum);
+  }
+
+  /**
+   * Emits the coalesced changes as {"id": ..., "availableTicketsDelta": ...}.
+   * A subscriber that can't keep up misses changes instead of slowing down the others.
+   *
+   * @return The changes
+   */
+  public Multi<JsonObject> changes() {
+    return this.processor.onOverflow().drop();
+  }
+}
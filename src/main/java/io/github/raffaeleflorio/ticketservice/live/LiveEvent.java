@@ -0,0 +1,67 @@
+package io.github.raffaeleflorio.ticketservice.live;
+
+import io.github.raffaeleflorio.ticketservice.Event;
+import io.smallrye.mutiny.Uni;
+
+import javax.json.JsonObject;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * An {@link Event} that feeds a {@link LiveAvailability} with its availability changes
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class LiveEvent implements Event {
+
+  private final UUID id;
+  private final Event origin;
+  private final LiveAvailability availability;
+
+  /**
+   * Builds an event
+   *
+   * @param id           The event's id
+   * @param origin       The decorated event
+   * @param availability The broadcaster of availability changes
+   */
+  LiveEvent(final UUID id, final Event origin, final LiveAvailability availability) {
+    this.id = id;
+    this.origin = origin;
+    this.availability = availability;
+  }
+
+  @Override
+  public Uni<JsonObject> asJsonObject() {
+    return this.origin.asJsonObject();
+  }
+
+  @Override
+  public Uni<UUID> ticket(final UUID participant) {
+    return this.origin.ticket(participant)
+      .onItem().invoke(() -> this.availability.changed(this.id, -1));
+  }
+
+  @Override
+  public Uni<List<UUID>> tickets(final List<UUID> participants) {
+    return this.origin.tickets(participants)
+      .onItem().invoke(tickets -> this.availability.changed(this.id, -tickets.size()));
+  }
+
+  @Override
+  public Uni<UUID> hold(final UUID participant) {
+    return this.origin.hold(participant)
+      .onItem().invoke(() -> this.availability.changed(this.id, -1));
+  }
+
+  @Override
+  public Uni<UUID> confirm(final UUID hold) {
+    return this.origin.confirm(hold);
+  }
+
+  @Override
+  public Uni<Void> release(final UUID hold) {
+    return this.origin.release(hold)
+      .onItem().invoke(() -> this.availability.changed(this.id, 1));
+  }
+}
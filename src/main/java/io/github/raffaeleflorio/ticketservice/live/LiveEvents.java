@@ -0,0 +1,89 @@
+package io.github.raffaeleflorio.ticketservice.live;
+
+import io.github.raffaeleflorio.ticketservice.Event;
+import io.github.raffaeleflorio.ticketservice.Events;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+
+import javax.json.JsonObject;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * {@link Events} that feed a {@link LiveAvailability} with the availability changes of their events
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+public final class LiveEvents implements Events {
+
+  private final Events origin;
+  private final LiveAvailability availability;
+
+  /**
+   * Builds events
+   *
+   * @param origin       The decorated events
+   * @param availability The broadcaster of availability changes
+   */
+  public LiveEvents(final Events origin, final LiveAvailability availability) {
+    this.origin = origin;
+    this.availability = availability;
+  }
+
+  @Override
+  public Uni<Event> event(final JsonObject event) {
+    return this.origin.event(event);
+  }
+
+  @Override
+  public Uni<List<Event>> events(final List<JsonObject> events) {
+    return this.origin.events(events);
+  }
+
+  @Override
+  public Multi<Event> event(final UUID id) {
+    return this.origin.event(id)
+      .onItem().transform(event -> new LiveEvent(id, event, this.availability));
+  }
+
+  @Override
+  public Events upcoming() {
+    return new LiveEvents(this.origin.upcoming(), this.availability);
+  }
+
+  @Override
+  public Events after(final OffsetDateTime date, final UUID id) {
+    return new LiveEvents(this.origin.after(date, id), this.availability);
+  }
+
+  @Override
+  public Events since(final OffsetDateTime date) {
+    return new LiveEvents(this.origin.since(date), this.availability);
+  }
+
+  @Override
+  public Events until(final OffsetDateTime date) {
+    return new LiveEvents(this.origin.until(date), this.availability);
+  }
+
+  @Override
+  public Events available() {
+    return new LiveEvents(this.origin.available(), this.availability);
+  }
+
+  @Override
+  public Events first(final Integer size) {
+    return new LiveEvents(this.origin.first(size), this.availability);
+  }
+
+  @Override
+  public Uni<JsonObject> asJsonObject() {
+    return this.origin.asJsonObject();
+  }
+
+  @Override
+  public Multi<JsonObject> asJsonStream() {
+    return this.origin.asJsonStream();
+  }
+}
@@ -0,0 +1,144 @@
+package io.github.raffaeleflorio.ticketservice.snapshot;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonValue;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable copy of the {@link JsonObject} representation of upcoming events.
+ * The next gone date and the position of each event are computed once when it's loaded, and carried over by patches.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class Frame {
+
+  private final JsonObject events;
+  private final OffsetDateTime loaded;
+  private final OffsetDateTime nextGone;
+  private final Map<String, Integer> positions;
+
+  /**
+   * Builds a frame
+   *
+   * @param events The upcoming events as {"events": [...]}
+   * @param loaded When the events were read from the origin
+   */
+  Frame(final JsonObject events, final OffsetDateTime loaded) {
+    this(events, loaded, Frame.nextGone(events), Frame.positions(events));
+  }
+
+  private Frame(
+    final JsonObject events,
+    final OffsetDateTime loaded,
+    final OffsetDateTime nextGone,
+    final Map<String, Integer> positions
+  ) {
+    this.events = events;
+    this.loaded = loaded;
+    this.nextGone = nextGone;
+    this.positions = positions;
+  }
+
+  private static OffsetDateTime nextGone(final JsonObject events) {
+    return Frame.list(events).stream()
+      .map(event -> OffsetDateTime.parse(event.getString("date")))
+      .min(OffsetDateTime::compareTo)
+      .orElse(OffsetDateTime.MAX);
+  }
+
+  private static Map<String, Integer> positions(final JsonObject events) {
+    var list = Frame.list(events);
+    return IntStream.range(0, list.size())
+      .boxed()
+      .collect(Collectors.toUnmodifiableMap(position -> list.get(position).getString("id"), Function.identity()));
+  }
+
+  private static List<JsonObject> list(final JsonObject events) {
+    return events.getJsonArray("events").getValuesAs(JsonObject.class);
+  }
+
+  /**
+   * Checks if it was loaded within the given staleness bound
+   *
+   * @param now          The current instant
+   * @param maxStaleness The staleness bound
+   * @return True if it's fresh
+   */
+  Boolean fresh(final OffsetDateTime now, final Duration maxStaleness) {
+    return !now.isAfter(this.loaded.plus(maxStaleness));
+  }
+
+  /**
+   * Checks if some event is gone
+   *
+   * @param now The current instant
+   * @return True if some event is gone
+   */
+  Boolean outdated(final OffsetDateTime now) {
+    return now.isAfter(this.nextGone);
+  }
+
+  /**
+   * Builds a frame without gone events
+   *
+   * @param now The current instant
+   * @return The frame
+   */
+  Frame upcoming(final OffsetDateTime now) {
+    return this.with(
+      Frame.list(this.events).stream()
+        .filter(event -> !now.isAfter(OffsetDateTime.parse(event.getString("date"))))
+        .collect(Collectors.toList())
+    );
+  }
+
+  /**
+   * Builds a frame with the available tickets of an event changed by the given delta
+   *
+   * @param id    The event's id
+   * @param delta The change of the available tickets
+   * @return The frame
+   */
+  Frame patched(final String id, final Integer delta) {
+    var position = this.positions.get(id);
+    if (position == null) {
+      return this;
+    }
+    var events = new ArrayList<JsonValue>(this.events.getJsonArray("events"));
+    var event = events.get(position).asJsonObject();
+    events.set(
+      position,
+      Json.createObjectBuilder(event)
+        .add("availableTickets", Math.max(0, event.getInt("availableTickets") + delta))
+        .build()
+    );
+    return new Frame(Frame.asJsonObject(events), this.loaded, this.nextGone, this.positions);
+  }
+
+  private Frame with(final List<? extends JsonValue> events) {
+    return new Frame(Frame.asJsonObject(events), this.loaded);
+  }
+
+  private static JsonObject asJsonObject(final List<? extends JsonValue> events) {
+    var array = Json.createArrayBuilder();
+    events.forEach(array::add);
+    return Json.createObjectBuilder().add("events", array).build();
+  }
+
+  /**
+   * Emits its {@link JsonObject} representation
+   *
+   * @return Its {@link JsonObject} representation
+   */
+  JsonObject asJsonObject() {
+    return this.events;
+  }
+}
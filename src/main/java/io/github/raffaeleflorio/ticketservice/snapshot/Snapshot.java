@@ -0,0 +1,144 @@
+package io.github.raffaeleflorio.ticketservice.snapshot;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.mutiny.Uni;
+
+import javax.json.JsonObject;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * The shared in-memory snapshot of upcoming events.
+ * It's reloaded from its origin once stale or invalidated, with concurrent misses sharing a single load.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class Snapshot {
+
+  private final Duration maxStaleness;
+  private final Supplier<OffsetDateTime> nowSupplier;
+  private final Counter hits;
+  private final Counter misses;
+  private final AtomicReference<Frame> frame;
+  private final AtomicReference<Uni<Frame>> loading;
+  private final AtomicLong generation;
+
+  /**
+   * Builds an empty snapshot
+   *
+   * @param maxStaleness The staleness bound
+   * @param nowSupplier  The supplier of the current instant
+   * @param registry     The meter registry
+   */
+  Snapshot(final Duration maxStaleness, final Supplier<OffsetDateTime> nowSupplier, final MeterRegistry registry) {
+    this(
+      maxStaleness,
+      nowSupplier,
+      Snapshot.lookups(registry, "hit"),
+      Snapshot.lookups(registry, "miss"),
+      new AtomicReference<>(),
+      new AtomicReference<>(),
+      new AtomicLong()
+    );
+  }
+
+  Snapshot(
+    final Duration maxStaleness,
+    final Supplier<OffsetDateTime> nowSupplier,
+    final Counter hits,
+    final Counter misses,
+    final AtomicReference<Frame> frame,
+    final AtomicReference<Uni<Frame>> loading,
+    final AtomicLong generation
+  ) {
+    this.maxStaleness = maxStaleness;
+    this.nowSupplier = nowSupplier;
+    this.hits = hits;
+    this.misses = misses;
+    this.frame = frame;
+    this.loading = loading;
+    this.generation = generation;
+  }
+
+  private static Counter lookups(final MeterRegistry registry, final String result) {
+    return Counter.builder("ticket-service.events.snapshot.lookups")
+      .description("Lookups of the upcoming events snapshot")
+      .tag("result", result)
+      .register(registry);
+  }
+
+  /**
+   * Emits the upcoming events, loading them from the given origin if it's stale
+   *
+   * @param origin The supplier of the upcoming events as {"events": [...]}
+   * @return The upcoming events as {"events": [...]}
+   */
+  Uni<JsonObject> asJsonObject(final Supplier<Uni<JsonObject>> origin) {
+    var now = this.nowSupplier.get();
+    var current = this.frame.get();
+    if (current != null && current.fresh(now, this.maxStaleness)) {
+      this.hits.increment();
+      return Uni.createFrom().item(this.upcoming(current, now).asJsonObject());
+    }
+    this.misses.increment();
+    return this.loaded(origin).onItem().transform(Frame::asJsonObject);
+  }
+
+  private Frame upcoming(final Frame current, final OffsetDateTime now) {
+    if (current.outdated(now)) {
+      var upcoming = current.upcoming(now);
+      this.frame.compareAndSet(current, upcoming);
+      return upcoming;
+    }
+    return current;
+  }
+
+  private Uni<Frame> loaded(final Supplier<Uni<JsonObject>> origin) {
+    var load = new AtomicReference<Uni<Frame>>();
+    load.set(
+      Uni.createFrom().deferred(() -> this.load(origin))
+        .onTermination().invoke(() -> this.loading.compareAndSet(load.get(), null))
+        .memoize().indefinitely()
+    );
+    return this.loading.updateAndGet(current -> current != null ? current : load.get());
+  }
+
+  private Uni<Frame> load(final Supplier<Uni<JsonObject>> origin) {
+    var generation = this.generation.get();
+    var started = this.nowSupplier.get();
+    return origin.get()
+      .onItem().transform(events -> new Frame(events, started))
+      .onItem().invoke(loaded -> {
+        if (this.generation.get() == generation) {
+          this.frame.set(loaded);
+        }
+      });
+  }
+
+  /**
+   * Changes the available tickets of an event, if it's in the snapshot
+   *
+   * @param id    The event's id
+   * @param delta The change of the available tickets
+   */
+  void patch(final UUID id, final Integer delta) {
+    this.frame.updateAndGet(current -> current == null ? null : current.patched(id.toString(), delta));
+  }
+
+  /**
+   * Drops the snapshot and loads it again in background
+   *
+   * @param origin The supplier of the upcoming events as {"events": [...]}
+   */
+  void refresh(final Supplier<Uni<JsonObject>> origin) {
+    this.generation.incrementAndGet();
+    this.frame.set(null);
+    this.loading.set(null);
+    this.loaded(origin).subscribe().with(loaded -> { }, failure -> { });
+  }
+}
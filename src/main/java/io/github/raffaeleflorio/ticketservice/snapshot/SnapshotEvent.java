@@ -0,0 +1,67 @@
+package io.github.raffaeleflorio.ticketservice.snapshot;
+
+import io.github.raffaeleflorio.ticketservice.Event;
+import io.smallrye.mutiny.Uni;
+
+import javax.json.JsonObject;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * An {@link Event} that patches the snapshot of upcoming events when its availability changes
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+final class SnapshotEvent implements Event {
+
+  private final UUID id;
+  private final Event origin;
+  private final Snapshot snapshot;
+
+  /**
+   * Builds an event
+   *
+   * @param id       The event's id
+   * @param origin   The decorated event
+   * @param snapshot The snapshot
+   */
+  SnapshotEvent(final UUID id, final Event origin, final Snapshot snapshot) {
+    this.id = id;
+    this.origin = origin;
+    this.snapshot = snapshot;
+  }
+
+  @Override
+  public Uni<JsonObject> asJsonObject() {
+    return this.origin.asJsonObject();
+  }
+
+  @Override
+  public Uni<UUID> ticket(final UUID participant) {
+    return this.origin.ticket(participant)
+      .onItem().invoke(() -> this.snapshot.patch(this.id, -1));
+  }
+
+  @Override
+  public Uni<List<UUID>> tickets(final List<UUID> participants) {
+    return this.origin.tickets(participants)
+      .onItem().invoke(tickets -> this.snapshot.patch(this.id, -tickets.size()));
+  }
+
+  @Override
+  public Uni<UUID> hold(final UUID participant) {
+    return this.origin.hold(participant)
+      .onItem().invoke(() -> this.snapshot.patch(this.id, -1));
+  }
+
+  @Override
+  public Uni<UUID> confirm(final UUID hold) {
+    return this.origin.confirm(hold);
+  }
+
+  @Override
+  public Uni<Void> release(final UUID hold) {
+    return this.origin.release(hold)
+      .onItem().invoke(() -> this.snapshot.patch(this.id, 1));
+  }
+}
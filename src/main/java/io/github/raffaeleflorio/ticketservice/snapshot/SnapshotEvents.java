@@ -0,0 +1,109 @@
+package io.github.raffaeleflorio.ticketservice.snapshot;
+
+import io.github.raffaeleflorio.ticketservice.Event;
+import io.github.raffaeleflorio.ticketservice.Events;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+
+import javax.json.JsonObject;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * {@link Events} that serve upcoming events from an in-memory snapshot.
+ * The snapshot is refreshed when an event is added, patched when bookings change availability
+ * and reloaded once older than the staleness bound.
+ * Further filtered events are read from the origin, whatever the order of their filters.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+public final class SnapshotEvents implements Events {
+
+  private final Events origin;
+  private final Snapshot snapshot;
+  private final Boolean upcoming;
+  private final Boolean filtered;
+
+  /**
+   * Builds events
+   *
+   * @param origin       The decorated events
+   * @param maxStaleness The staleness bound of the snapshot
+   * @param registry     The meter registry
+   */
+  public SnapshotEvents(final Events origin, final Duration maxStaleness, final MeterRegistry registry) {
+    this(origin, new Snapshot(maxStaleness, () -> OffsetDateTime.now(ZoneOffset.UTC), registry), false, false);
+  }
+
+  SnapshotEvents(final Events origin, final Snapshot snapshot, final Boolean upcoming, final Boolean filtered) {
+    this.origin = origin;
+    this.snapshot = snapshot;
+    this.upcoming = upcoming;
+    this.filtered = filtered;
+  }
+
+  @Override
+  public Uni<Event> event(final JsonObject event) {
+    return this.origin.event(event)
+      .onItem().invoke(() -> this.snapshot.refresh(() -> this.origin.upcoming().asJsonObject()));
+  }
+
+  @Override
+  public Uni<List<Event>> events(final List<JsonObject> events) {
+    return this.origin.events(events)
+      .onItem().invoke(() -> this.snapshot.refresh(() -> this.origin.upcoming().asJsonObject()));
+  }
+
+  @Override
+  public Multi<Event> event(final UUID id) {
+    return this.origin.event(id)
+      .onItem().transform(event -> new SnapshotEvent(id, event, this.snapshot));
+  }
+
+  @Override
+  public Events upcoming() {
+    return new SnapshotEvents(this.origin.upcoming(), this.snapshot, !this.filtered, this.filtered);
+  }
+
+  @Override
+  public Events after(final OffsetDateTime date, final UUID id) {
+    return new SnapshotEvents(this.origin.after(date, id), this.snapshot, false, true);
+  }
+
+  @Override
+  public Events since(final OffsetDateTime date) {
+    return new SnapshotEvents(this.origin.since(date), this.snapshot, false, true);
+  }
+
+  @Override
+  public Events until(final OffsetDateTime date) {
+    return new SnapshotEvents(this.origin.until(date), this.snapshot, false, true);
+  }
+
+  @Override
+  public Events available() {
+    return new SnapshotEvents(this.origin.available(), this.snapshot, false, true);
+  }
+
+  @Override
+  public Events first(final Integer size) {
+    return new SnapshotEvents(this.origin.first(size), this.snapshot, false, true);
+  }
+
+  @Override
+  public Uni<JsonObject> asJsonObject() {
+    if (this.upcoming) {
+      return this.snapshot.asJsonObject(this.origin::asJsonObject);
+    }
+    return this.origin.asJsonObject();
+  }
+
+  @Override
+  public Multi<JsonObject> asJsonStream() {
+    return this.origin.asJsonStream();
+  }
+}
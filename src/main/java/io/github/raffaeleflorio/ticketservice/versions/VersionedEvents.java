@@ -0,0 +1,95 @@
+package io.github.raffaeleflorio.ticketservice.versions;
+
+import io.github.raffaeleflorio.ticketservice.Event;
+import io.github.raffaeleflorio.ticketservice.Events;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+
+import javax.json.JsonObject;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * {@link Events} that bump their {@link Versions} when they change
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+public final class VersionedEvents implements Events {
+
+  private final Events origin;
+  private final Versions versions;
+
+  /**
+   * Builds events
+   *
+   * @param origin   The decorated events
+   * @param versions The versions
+   */
+  public VersionedEvents(final Events origin, final Versions versions) {
+    this.origin = origin;
+    this.versions = versions;
+  }
+
+  @Override
+  public Uni<Event> event(final JsonObject event) {
+    return this.origin.event(event)
+      .onItem().invoke(() -> this.versions.bumpAll());
+  }
+
+  @Override
+  public Uni<List<Event>> events(final List<JsonObject> events) {
+    return this.origin.events(events)
+      .onItem().invoke(() -> this.versions.bumpAll());
+  }
+
+  @Override
+  public Multi<Event> event(final UUID id) {
+    return this.origin.event(id)
+      .onItem().transform(event -> new VersionedEvent(id, event, this.versions));
+  }
+
+  @Override
+  public Events upcoming() {
+    return new VersionedEvents(this.origin.upcoming(), this.versions);
+  }
+
+  @Override
+  public Events after(final OffsetDateTime date, final UUID id) {
+    return new VersionedEvents(this.origin.after(date, id), this.versions);
+  }
+
+  @Override
+  public Events since(final OffsetDateTime date) {
+    return new VersionedEvents(this.origin.since(date), this.versions);
+  }
+
+  @Override
+  public Events until(final OffsetDateTime date) {
+    return new VersionedEvents(this.origin.until(date), this.versions);
+  }
+
+  @Override
+  public Events available() {
+    return new VersionedEvents(this.origin.available(), this.versions);
+  }
+
+  @Override
+  public Events first(final Integer size) {
+    return new VersionedEvents(this.origin.first(size), this.versions);
+  }
+
+  @Override
+  public Uni<JsonObject> asJsonObject() {
+    return this.origin.asJsonObject()
+      .onItem().invoke(events -> events.getJsonArray("events").getValuesAs(JsonObject.class).forEach(
+        event -> this.versions.seen(OffsetDateTime.parse(event.getString("date")))
+      ));
+  }
+
+  @Override
+  public Multi<JsonObject> asJsonStream() {
+    return this.origin.asJsonStream()
+      .onItem().invoke(event -> this.versions.seen(OffsetDateTime.parse(event.getString("date"))));
+  }
+}
@@ -0,0 +1,125 @@
+package io.github.raffaeleflorio.ticketservice.versions;
+
+import javax.enterprise.context.ApplicationScoped;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * In-memory versions of events and of the upcoming events collection.
+ * Versions are prefixed by a random epoch, so they don't repeat across restarts.
+ *
+ * @author Raffaele Florio (raffaeleflorio@protonmail.com)
+ */
+@ApplicationScoped
+public final class Versions {
+
+  private static final AtomicLong ZERO = new AtomicLong();
+
+  private final String epoch;
+  private final ConcurrentMap<UUID, AtomicLong> events;
+  private final AtomicLong collection;
+  private final AtomicLong updates;
+  private final AtomicReference<OffsetDateTime> nextGone;
+  private final Supplier<OffsetDateTime> nowSupplier;
+
+  /**
+   * Builds versions
+   */
+  public Versions() {
+    this(
+      Long.toHexString(UUID.randomUUID().getMostSignificantBits()),
+      new ConcurrentHashMap<>(),
+      new AtomicLong(),
+      new AtomicLong(),
+      new AtomicReference<>(OffsetDateTime.MAX),
+      () -> OffsetDateTime.now(ZoneOffset.UTC)
+    );
+  }
+
+  Versions(
+    final String epoch,
+    final ConcurrentMap<UUID, AtomicLong> events,
+    final AtomicLong collection,
+    final AtomicLong updates,
+    final AtomicReference<OffsetDateTime> nextGone,
+    final Supplier<OffsetDateTime> nowSupplier
+  ) {
+    this.epoch = epoch;
+    this.events = events;
+    this.collection = collection;
+    this.updates = updates;
+    this.nextGone = nextGone;
+    this.nowSupplier = nowSupplier;
+  }
+
+  /**
+   * Emits the version of an event.
+   * It changes also when any event is added or updated.
+   * Reading it doesn't record the event, only bumps do.
+   *
+   * @param id The event's id
+   * @return The version
+   */
+  public String event(final UUID id) {
+    return String.format(
+      "%s-%d-%d",
+      this.epoch,
+      this.updates.get(),
+      this.events.getOrDefault(id, Versions.ZERO).get()
+    );
+  }
+
+  /**
+   * Emits the version of the upcoming events collection.
+   * It changes also when a seen event becomes gone.
+   *
+   * @return The version
+   */
+  public String collection() {
+    var nextGone = this.nextGone.get();
+    if (this.nowSupplier.get().isAfter(nextGone) && this.nextGone.compareAndSet(nextGone, OffsetDateTime.MAX)) {
+      this.collection.incrementAndGet();
+    }
+    return String.format("%s-%d", this.epoch, this.collection.get());
+  }
+
+  /**
+   * Bumps the version of an event and of the collection
+   *
+   * @param id The event's id
+   */
+  public void bump(final UUID id) {
+    this.events.computeIfAbsent(id, key -> new AtomicLong()).incrementAndGet();
+    this.bump();
+  }
+
+  /**
+   * Bumps the version of the collection
+   */
+  public void bump() {
+    this.collection.incrementAndGet();
+  }
+
+  /**
+   * Bumps the versions of all events and of the collection
+   */
+  public void bumpAll() {
+    this.updates.incrementAndGet();
+    this.bump();
+  }
+
+  /**
+   * Records the date of an event, so that the collection version changes once it's gone
+   *
+   * @param date The event's date
+   */
+  public void seen(final OffsetDateTime date) {
+    this.nextGone.accumulateAndGet(date, (current, seen) -> seen.isBefore(current) ? seen : current);
+  }
+}
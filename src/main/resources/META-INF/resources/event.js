@@ -4,6 +4,19 @@ const domParser = new DOMParser();
 
 document.querySelectorAll('.js-book-button').forEach(addBookButtonEventListener);
 
+new EventSource('/events/availability').addEventListener('message', e => updateAvailableTickets(JSON.parse(e.data)));
+
+function updateAvailableTickets(change) {
+  const availableTickets = document.querySelector(`#event-${change.id} .js-available-tickets`);
+  if (availableTickets) {
+    const updated = Math.max(0, Number(availableTickets.textContent) + change.availableTicketsDelta);
+    availableTickets.textContent = updated;
+    if (updated === 0 || document.querySelector(`#event-${change.id} .js-book-button`) === null) {
+      hydrate(change.id);
+    }
+  }
+}
+
 function addBookButtonEventListener(bookButton) {
   bookButton.addEventListener('click', e => book(e.target.dataset.event));
 }
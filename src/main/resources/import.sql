@@ -9,6 +9,7 @@ CREATE TABLE IF NOT EXISTS EVENTS(
   MAX_TICKETS INTEGER NOT NULL,
   SOLD_TICKETS INTEGER NOT NULL DEFAULT 0,
   CREATION_TIMESTAMP TIMESTAMP WITH TIME ZONE NOT NULL,
+  TICKET_SHARDS INTEGER NOT NULL DEFAULT 1,
   PRIMARY KEY(ID),
   UNIQUE (EXTERNAL_ID, ORIGIN)
 );
@@ -22,3 +23,37 @@ CREATE TABLE IF NOT EXISTS TICKETS(
   UNIQUE (PARTICIPANT_ID, EVENT_ID),
   FOREIGN KEY(EVENT_ID) REFERENCES EVENTS(ID)
 );
+
+CREATE TABLE IF NOT EXISTS EVENT_TICKET_SHARDS(
+  EVENT_ID UUID NOT NULL,
+  SHARD INTEGER NOT NULL,
+  MAX_TICKETS INTEGER NOT NULL,
+  SOLD_TICKETS INTEGER NOT NULL DEFAULT 0,
+  PRIMARY KEY(EVENT_ID, SHARD),
+  FOREIGN KEY(EVENT_ID) REFERENCES EVENTS(ID)
+);
+
+CREATE TABLE IF NOT EXISTS HOLDS(
+  ID UUID NOT NULL,
+  EVENT_ID UUID NOT NULL,
+  PARTICIPANT_ID UUID NOT NULL,
+  SHARD INTEGER NOT NULL,
+  EXPIRATION_TIMESTAMP TIMESTAMP WITH TIME ZONE NOT NULL,
+  CREATION_TIMESTAMP TIMESTAMP WITH TIME ZONE NOT NULL,
+  PRIMARY KEY(ID),
+  UNIQUE (PARTICIPANT_ID, EVENT_ID),
+  FOREIGN KEY(EVENT_ID) REFERENCES EVENTS(ID)
+);
+
+CREATE INDEX IF NOT EXISTS EVENTS_TIMESTAMP_ID ON EVENTS(EVENT_TIMESTAMP, ID);
+
+CREATE TABLE IF NOT EXISTS INBOX(
+  ID UUID NOT NULL,
+  PAYLOAD CLOB NOT NULL,
+  ATTEMPTS INTEGER NOT NULL,
+  NEXT_ATTEMPT_TIMESTAMP TIMESTAMP WITH TIME ZONE,
+  CREATION_TIMESTAMP TIMESTAMP WITH TIME ZONE NOT NULL,
+  PRIMARY KEY(ID)
+);
+
+CREATE INDEX IF NOT EXISTS INBOX_NEXT_ATTEMPT ON INBOX(NEXT_ATTEMPT_TIMESTAMP);
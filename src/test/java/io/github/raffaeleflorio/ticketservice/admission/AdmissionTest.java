@@ -0,0 +1,73 @@
+package io.github.raffaeleflorio.ticketservice.admission;
+
+import io.github.raffaeleflorio.ticketservice.BookingException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.smallrye.mutiny.Uni;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionTest {
+
+  @Test
+  void refundsTheTokensOfThrottledBookings() {
+    var participants = new TokenBuckets(1d, 1, 10);
+    var admission = this.admission(participants, new TokenBuckets(1d, 0, 10), new ConcurrentHashMap<>());
+    var participant = UUID.randomUUID();
+    var failure = assertThrows(
+      BookingException.class,
+      () -> admission.admitted(UUID.randomUUID(), List.of(participant), () -> Uni.createFrom().item(1))
+        .await().indefinitely()
+    );
+    assertEquals(BookingException.Reason.THROTTLED, failure.reason());
+    assertTrue(participants.taken(participant));
+  }
+
+  @Test
+  void releasesTheSlotOfABookingThatThrows() {
+    var limits = new ConcurrentHashMap<UUID, ConcurrencyLimit>();
+    var admission = this.admission(new TokenBuckets(1d, 10, 10), new TokenBuckets(1d, 10, 10), limits);
+    var id = UUID.randomUUID();
+    assertThrows(
+      IllegalStateException.class,
+      () -> admission.<Integer>admitted(id, List.of(UUID.randomUUID()), () -> {
+        throw new IllegalStateException();
+      }).await().indefinitely()
+    );
+    assertTrue(limits.get(id).idle());
+  }
+
+  private Admission admission(
+    final TokenBuckets participants,
+    final TokenBuckets events,
+    final ConcurrentHashMap<UUID, ConcurrencyLimit> limits
+  ) {
+    var registry = new CompositeMeterRegistry();
+    return new Admission(
+      true,
+      participants,
+      events,
+      new ConcurrencyLimits(
+        () -> new ConcurrencyLimit(1, 1, Duration.ofSeconds(1), 0.5),
+        10,
+        Duration.ofSeconds(1),
+        limits,
+        new AtomicReference<>(Instant.MIN),
+        Instant::now
+      ),
+      Instant::now,
+      Counter.builder("throttled").register(registry),
+      Counter.builder("shed").register(registry)
+    );
+  }
+}
@@ -0,0 +1,70 @@
+package io.github.raffaeleflorio.ticketservice.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimitTest {
+
+  private static final Duration TARGET = Duration.ofMillis(100);
+
+  @Test
+  void refusesOverTheLimit() {
+    var limit = new ConcurrencyLimit(1, 2, TARGET, 0.5);
+    assertTrue(limit.acquired());
+    assertTrue(limit.acquired());
+    assertFalse(limit.acquired());
+    limit.released(Duration.ZERO, false);
+    assertTrue(limit.acquired());
+  }
+
+  @Test
+  void decreasesMultiplicativelyDownToItsMin() {
+    var inFlight = new AtomicInteger();
+    var limit = new ConcurrencyLimit(2, 16, TARGET, 0.5, inFlight, 16);
+    this.released(limit, TARGET.plusMillis(1), false);
+    assertEquals(8, this.acquirable(limit, inFlight));
+    this.released(limit, Duration.ZERO, true);
+    assertEquals(4, this.acquirable(limit, inFlight));
+    for (var booking = 0; booking < 10; booking++) {
+      this.released(limit, Duration.ZERO, true);
+    }
+    assertEquals(2, this.acquirable(limit, inFlight));
+  }
+
+  @Test
+  void increasesAdditivelyUpToItsMax() {
+    var inFlight = new AtomicInteger();
+    var limit = new ConcurrencyLimit(1, 3, TARGET, 0.5, inFlight, 1);
+    this.released(limit, Duration.ZERO, false);
+    assertEquals(2, this.acquirable(limit, inFlight));
+    this.released(limit, Duration.ZERO, false);
+    this.released(limit, Duration.ZERO, false);
+    assertEquals(2, this.acquirable(limit, inFlight));
+    this.released(limit, Duration.ZERO, false);
+    assertEquals(3, this.acquirable(limit, inFlight));
+    for (var booking = 0; booking < 100; booking++) {
+      this.released(limit, Duration.ZERO, false);
+    }
+    assertEquals(3, this.acquirable(limit, inFlight));
+  }
+
+  private void released(final ConcurrencyLimit limit, final Duration latency, final Boolean overloaded) {
+    assertTrue(limit.acquired());
+    limit.released(latency, overloaded);
+  }
+
+  private Integer acquirable(final ConcurrencyLimit limit, final AtomicInteger inFlight) {
+    var acquired = 0;
+    while (limit.acquired()) {
+      acquired++;
+    }
+    inFlight.addAndGet(-acquired);
+    return acquired;
+  }
+}
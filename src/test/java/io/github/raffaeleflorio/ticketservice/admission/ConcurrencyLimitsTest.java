@@ -0,0 +1,67 @@
+package io.github.raffaeleflorio.ticketservice.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimitsTest {
+
+  @Test
+  void reusesTheLimitOfAKey() {
+    var limits = new ConcurrencyLimits(() -> new ConcurrencyLimit(1, 1, Duration.ofMillis(1), 0.5), 10, Duration.ZERO);
+    var key = UUID.randomUUID();
+    assertSame(limits.limit(key), limits.limit(key));
+  }
+
+  @Test
+  void evictsOnlyIdleLimits() {
+    var map = new ConcurrentHashMap<UUID, ConcurrencyLimit>();
+    var now = new AtomicReference<>(Instant.EPOCH);
+    var limits = new ConcurrencyLimits(
+      () -> new ConcurrencyLimit(1, 1, Duration.ofMillis(1), 0.5),
+      1,
+      Duration.ofSeconds(1),
+      map,
+      new AtomicReference<>(Instant.MIN),
+      now::get
+    );
+    var busy = UUID.randomUUID();
+    assertTrue(limits.limit(busy).acquired());
+    limits.limit(UUID.randomUUID());
+    limits.limit(UUID.randomUUID());
+    assertEquals(2, map.size());
+    assertTrue(map.containsKey(busy));
+  }
+
+  @Test
+  void sweepsAtMostOncePerInterval() {
+    var map = new ConcurrentHashMap<UUID, ConcurrencyLimit>();
+    var now = new AtomicReference<>(Instant.EPOCH);
+    var limits = new ConcurrencyLimits(
+      () -> new ConcurrencyLimit(1, 1, Duration.ofMillis(1), 0.5),
+      1,
+      Duration.ofSeconds(1),
+      map,
+      new AtomicReference<>(Instant.MIN),
+      now::get
+    );
+    limits.limit(UUID.randomUUID());
+    limits.limit(UUID.randomUUID());
+    limits.limit(UUID.randomUUID());
+    limits.limit(UUID.randomUUID());
+    assertEquals(2, map.size());
+    limits.limit(UUID.randomUUID());
+    assertEquals(3, map.size());
+    now.set(now.get().plus(Duration.ofSeconds(1)).plusNanos(1));
+    limits.limit(UUID.randomUUID());
+    assertEquals(1, map.size());
+  }
+}
@@ -0,0 +1,59 @@
+package io.github.raffaeleflorio.ticketservice.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+  @Test
+  void allowsABurst() {
+    var now = new AtomicReference<>(Instant.EPOCH);
+    var bucket = new TokenBucket(1d, 3, now::get);
+    assertTrue(bucket.taken());
+    assertTrue(bucket.taken());
+    assertTrue(bucket.taken());
+    assertFalse(bucket.taken());
+  }
+
+  @Test
+  void refillsAtItsRate() {
+    var now = new AtomicReference<>(Instant.EPOCH);
+    var bucket = new TokenBucket(2d, 1, now::get);
+    assertTrue(bucket.taken());
+    now.set(now.get().plus(Duration.ofMillis(499)));
+    assertFalse(bucket.taken());
+    now.set(now.get().plus(Duration.ofMillis(1)));
+    assertTrue(bucket.taken());
+  }
+
+  @Test
+  void refillsUpToItsBurst() {
+    var now = new AtomicReference<>(Instant.EPOCH);
+    var bucket = new TokenBucket(1d, 2, now::get);
+    assertTrue(bucket.taken());
+    assertFalse(bucket.full());
+    now.set(now.get().plus(Duration.ofHours(1)));
+    assertTrue(bucket.full());
+    assertTrue(bucket.taken());
+    assertTrue(bucket.taken());
+    assertFalse(bucket.taken());
+  }
+
+  @Test
+  void givesBackRefundedTokens() {
+    var now = new AtomicReference<>(Instant.EPOCH);
+    var bucket = new TokenBucket(1d, 1, now::get);
+    assertTrue(bucket.taken());
+    bucket.refunded();
+    assertTrue(bucket.full());
+    bucket.refunded();
+    assertTrue(bucket.taken());
+    assertFalse(bucket.taken());
+  }
+}
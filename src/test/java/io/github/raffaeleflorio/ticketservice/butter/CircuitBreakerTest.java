@@ -0,0 +1,106 @@
+package io.github.raffaeleflorio.ticketservice.butter;
+
+import io.smallrye.mutiny.Uni;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CircuitBreakerTest {
+
+  @Test
+  void opensAfterConsecutiveFailures() {
+    var circuitBreaker = new CircuitBreaker(2, Duration.ofSeconds(1), failure -> true, () -> 0L);
+    this.failed(circuitBreaker);
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state());
+    this.failed(circuitBreaker);
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.state());
+  }
+
+  @Test
+  void resetsFailuresOnSuccess() {
+    var circuitBreaker = new CircuitBreaker(2, Duration.ofSeconds(1), failure -> true, () -> 0L);
+    this.failed(circuitBreaker);
+    this.succeeded(circuitBreaker);
+    this.failed(circuitBreaker);
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state());
+  }
+
+  @Test
+  void rejectsCallsWhileOpen() {
+    var now = new AtomicLong();
+    var circuitBreaker = new CircuitBreaker(1, Duration.ofSeconds(1), failure -> true, now::get);
+    this.failed(circuitBreaker);
+    now.addAndGet(Duration.ofMillis(999).toNanos());
+    var calls = new AtomicInteger();
+    assertThrows(
+      RuntimeException.class,
+      () -> circuitBreaker.call(() -> Uni.createFrom().item(calls.incrementAndGet())).await().indefinitely()
+    );
+    assertEquals(0, calls.get());
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.state());
+  }
+
+  @Test
+  void closesAfterSucceededTrial() {
+    var now = new AtomicLong();
+    var circuitBreaker = new CircuitBreaker(1, Duration.ofSeconds(1), failure -> true, now::get);
+    this.failed(circuitBreaker);
+    now.addAndGet(Duration.ofSeconds(1).toNanos());
+    this.succeeded(circuitBreaker);
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state());
+  }
+
+  @Test
+  void letsThroughASingleTrial() {
+    var now = new AtomicLong();
+    var circuitBreaker = new CircuitBreaker(1, Duration.ofSeconds(1), failure -> true, now::get);
+    this.failed(circuitBreaker);
+    now.addAndGet(Duration.ofSeconds(1).toNanos());
+    var trial = circuitBreaker.call(() -> Uni.createFrom().emitter(emitter -> { })).subscribe().with(item -> { });
+    assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.state());
+    assertThrows(RuntimeException.class, () -> this.succeeded(circuitBreaker));
+    trial.cancel();
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.state());
+  }
+
+  @Test
+  void reopensAfterFailedTrial() {
+    var now = new AtomicLong();
+    var circuitBreaker = new CircuitBreaker(2, Duration.ofSeconds(1), failure -> true, now::get);
+    this.failed(circuitBreaker);
+    this.failed(circuitBreaker);
+    now.addAndGet(Duration.ofSeconds(1).toNanos());
+    this.failed(circuitBreaker);
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.state());
+    now.addAndGet(Duration.ofMillis(999).toNanos());
+    assertThrows(RuntimeException.class, () -> this.succeeded(circuitBreaker));
+  }
+
+  @Test
+  void ignoresFailuresThatArentOutages() {
+    var circuitBreaker = new CircuitBreaker(
+      1,
+      Duration.ofSeconds(1),
+      IllegalStateException.class::isInstance,
+      () -> 0L
+    );
+    this.failed(circuitBreaker);
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state());
+  }
+
+  private void succeeded(final CircuitBreaker circuitBreaker) {
+    circuitBreaker.call(() -> Uni.createFrom().item("succeeded")).await().indefinitely();
+  }
+
+  private void failed(final CircuitBreaker circuitBreaker) {
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> circuitBreaker.call(() -> Uni.createFrom().failure(new IllegalArgumentException())).await().indefinitely()
+    );
+  }
+}
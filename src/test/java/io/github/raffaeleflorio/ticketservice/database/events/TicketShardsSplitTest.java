@@ -0,0 +1,32 @@
+package io.github.raffaeleflorio.ticketservice.database.events;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TicketShardsSplitTest {
+
+  @Test
+  void splitsEvenlyEmptyShards() {
+    assertEquals(List.of(4, 3, 3), new TicketShardsSplit(10).maxTickets(List.of(0, 0, 0)));
+  }
+
+  @Test
+  void addsAShareOfTheRemainingTicketsToTheSoldOnes() {
+    assertEquals(List.of(6, 4), new TicketShardsSplit(10).maxTickets(List.of(3, 1)));
+  }
+
+  @Test
+  void doesntSellMoreThanTheLoweredMax() {
+    var maxTickets = new TicketShardsSplit(10).maxTickets(List.of(8, 0));
+    assertEquals(List.of(9, 1), maxTickets);
+    assertEquals(10, maxTickets.stream().mapToInt(Integer::intValue).sum());
+  }
+
+  @Test
+  void keepsTheSoldTicketsOverTheLoweredMax() {
+    assertEquals(List.of(8, 4), new TicketShardsSplit(10).maxTickets(List.of(8, 4)));
+  }
+}